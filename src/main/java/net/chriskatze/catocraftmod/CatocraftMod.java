@@ -4,12 +4,13 @@ import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import net.chriskatze.catocraftmod.block.ModBlocks;
 import net.chriskatze.catocraftmod.capability.EquipmentCapabilityHandler;
 import net.chriskatze.catocraftmod.config.AnvilConfig;
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
 import net.chriskatze.catocraftmod.enchantment.ModEnchantments;
 import net.chriskatze.catocraftmod.item.ModCreativeModeTabs;
 import net.chriskatze.catocraftmod.item.ModItems;
 import net.chriskatze.catocraftmod.menu.EquipmentMenu;
 import net.chriskatze.catocraftmod.menu.ModMenus;
-import net.chriskatze.catocraftmod.menu.runtime.DynamicMenuWorldData;
+import net.chriskatze.catocraftmod.menu.runtime.DynamicMenuCleanupScan;
 import net.chriskatze.catocraftmod.menu.ui.UISchemaLoader;
 import net.chriskatze.catocraftmod.menu.layout.SlotLayoutLoader;
 import net.chriskatze.catocraftmod.network.NetworkHandler;
@@ -22,7 +23,6 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.item.CreativeModeTabs;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
@@ -30,7 +30,6 @@ import net.neoforged.fml.loading.FMLLoader;
 import net.neoforged.neoforge.event.AddReloadListenerEvent;
 import net.neoforged.neoforge.event.RegisterCommandsEvent;
 import net.neoforged.neoforge.event.entity.EntityAttributeModificationEvent;
-import net.neoforged.neoforge.event.level.LevelEvent;
 import net.chriskatze.catocraftmod.util.ItemTypeRegistry;
 import org.slf4j.Logger;
 
@@ -43,6 +42,7 @@ import net.neoforged.fml.ModContainer;
 import net.neoforged.neoforge.common.NeoForge;
 import net.neoforged.neoforge.event.BuildCreativeModeTabContentsEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
 
 /**
  * 🐱 Main mod entrypoint for CatoCraft.
@@ -130,6 +130,9 @@ public class CatocraftMod {
             AnvilConfig.loadConfig();
             LOGGER.info("[CatocraftMod] Loaded Anvil JSON configuration.");
 
+            // 💾 Load equipment IO pool settings
+            EquipmentIOConfig.loadConfig();
+
             // 📘 Load item type definitions
             try {
                 ItemTypeRegistry.load();
@@ -214,24 +217,13 @@ public class CatocraftMod {
         net.chriskatze.catocraftmod.command.OpenMenuCommand.register(event.getDispatcher());
         net.chriskatze.catocraftmod.command.CleanDynamicMenusCommand.register(event.getDispatcher());
         net.chriskatze.catocraftmod.command.CreatorHubCommand.register(event.getDispatcher());
+        net.chriskatze.catocraftmod.command.EquipmentDataCommand.register(event.getDispatcher());
 
         // 🧩 Menu Creator Test Command (opens test container/screen)
         net.chriskatze.catocraftmod.command.MenuCreatorTestCommand.register(event.getDispatcher());
         LOGGER.info("[Commands] Registered /menucreator test command");
     }
 
-    // ────────────────────────────────────────────────
-    // Dynamic Menu WorldData Cleanup
-    // ────────────────────────────────────────────────
-    @SubscribeEvent
-    public void onWorldSave(LevelEvent.Save event) {
-        if (event.getLevel() instanceof ServerLevel level) {
-            var data = DynamicMenuWorldData.get(level);
-            data.cleanup(level.registryAccess());
-            LOGGER.debug("[Catocraft] Cleaned up DynamicMenuWorldData for world {}", level.dimension().location());
-        }
-    }
-
     // ────────────────────────────────────────────────
     // Server Events
     // ────────────────────────────────────────────────
@@ -268,5 +260,14 @@ public class CatocraftMod {
         } catch (Exception e) {
             LOGGER.warn("[CatocraftMod] ⚠ Failed to reload Anvil configuration: {}", e.toString());
         }
+
+        // Picked up by the equipment IO pool when it is (re)created for this server
+        EquipmentIOConfig.loadConfig();
+    }
+
+    @SubscribeEvent
+    public void onServerStopped(ServerStoppedEvent event) {
+        // A scan still running belongs to the old server; don't let it block the next world
+        DynamicMenuCleanupScan.reset();
     }
 }
\ No newline at end of file
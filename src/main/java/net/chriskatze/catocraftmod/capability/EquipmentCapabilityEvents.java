@@ -28,7 +28,7 @@ public class EquipmentCapabilityEvents {
         }
 
         cap.setOwner(player);
-        cap.initializeGroupsIfMissing();
+        cap.ensureLayoutCurrent();
         cap.reapplyAttributesOnLogin();
         cap.scheduleHealthNormalization(5);
 
@@ -48,7 +48,7 @@ public class EquipmentCapabilityHandler {
                     var cap = new PlayerEquipmentCapability();
                     if (player instanceof ServerPlayer sp) {
                         cap.setOwner(sp);
-                        cap.initializeGroupsIfMissing(); // initializes all EquipmentGroups
+                        cap.ensureLayoutCurrent(); // initializes all EquipmentGroups
                     }
                     return cap;
                 })
@@ -98,14 +98,14 @@ public class EquipmentCapabilityHandler {
         }
 
         cap.setOwner(player);
-        cap.initializeGroupsIfMissing();
+        cap.ensureLayoutCurrent();
         cap.reapplyAttributesOnLogin();
         cap.scheduleHealthNormalization(5);
 
         CatocraftMod.LOGGER.debug(
                 "[EquipmentCap] Player {} initialized with {} equipment groups.",
                 player.getName().getString(),
-                cap.getAllGroups().size()
+                cap.getGroupCount()
         );
     }
 
@@ -114,7 +114,7 @@ public class EquipmentCapabilityHandler {
         var cap = player.getCapability(EQUIPMENT_CAP);
         if (cap != null && player instanceof ServerPlayer sp) {
             cap.setOwner(sp);
-            cap.initializeGroupsIfMissing();
+            cap.ensureLayoutCurrent();
         }
         return cap;
     }
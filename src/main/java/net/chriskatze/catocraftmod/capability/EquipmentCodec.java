@@ -0,0 +1,292 @@
+package net.chriskatze.catocraftmod.capability;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.VarLong;
+import net.minecraft.world.item.ItemStack;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * 📦 Versioned binary format for equipment save files.
+ *
+ * Layout (big endian):
+ * <pre>
+ *   int     magic "CEQB"
+ *   byte    schema version
+ *   byte    flags (bit 0 = body is deflated)
+ *   int     CRC32 of the stored body
+ *   varint  stored body length
+ *   ...     body
+ * </pre>
+ * Body: the journal sequence the content covers (varlong, since v2), a string table of
+ * group keys, then per group its key index, inventory size and occupied slots as
+ * (varint slot, {@link ItemStack#STREAM_CODEC}) pairs.
+ *
+ * Files written before this format are gzipped NBT; {@link #decode} detects them by
+ * their GZIP header and converts them, so they migrate on the next save.
+ */
+public final class EquipmentCodec {
+
+    public static final int MAGIC = 0x43455142; // "CEQB"
+    public static final int VERSION = 2;
+
+    private static final int FLAG_DEFLATED = 1;
+    // Bodies below this size are stored as-is; deflate overhead outweighs the gain
+    private static final int DEFLATE_THRESHOLD = 512;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4;
+
+    /** Thrown when a file is truncated, corrupted or from a newer schema. */
+    public static class CorruptDataException extends IOException {
+        public CorruptDataException(String message) {
+            super(message);
+        }
+    }
+
+    private EquipmentCodec() {}
+
+    // ────────────────────────────────────────────────
+    // Encode
+    // ────────────────────────────────────────────────
+
+    public static byte[] encode(EquipmentSnapshot snapshot, RegistryAccess registries) {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(256), registries);
+        try {
+            VarLong.write(buf, snapshot.journalSeq());
+
+            // 🔹 String table
+            Map<String, Integer> strings = new LinkedHashMap<>();
+            for (EquipmentSnapshot.Group group : snapshot.groups())
+                strings.putIfAbsent(group.key(), strings.size());
+
+            VarInt.write(buf, strings.size());
+            for (String key : strings.keySet()) buf.writeUtf(key);
+
+            // 🔹 Groups
+            VarInt.write(buf, snapshot.groups().size());
+            for (EquipmentSnapshot.Group group : snapshot.groups()) {
+                VarInt.write(buf, strings.get(group.key()));
+                VarInt.write(buf, group.size());
+                VarInt.write(buf, group.slots().length);
+                for (int i = 0; i < group.slots().length; i++) {
+                    VarInt.write(buf, group.slots()[i]);
+                    ItemStack.STREAM_CODEC.encode(buf, group.stacks()[i]);
+                }
+            }
+
+            byte[] body = new byte[buf.readableBytes()];
+            buf.readBytes(body);
+            return frame(body);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static byte[] frame(byte[] body) {
+        int flags = 0;
+        if (body.length >= DEFLATE_THRESHOLD) {
+            byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                body = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuf out = Unpooled.buffer(HEADER_SIZE + 5 + body.length);
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeInt((int) crc.getValue());
+            VarInt.write(out, body.length);
+            out.writeBytes(body);
+
+            byte[] bytes = new byte[out.readableBytes()];
+            out.readBytes(bytes);
+            return bytes;
+        } finally {
+            out.release();
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Decode
+    // ────────────────────────────────────────────────
+
+    /** True if the data starts with a GZIP header, i.e. is a legacy NBT file. */
+    public static boolean isLegacy(byte[] data) {
+        return data.length >= 2 && (data[0] & 0xFF) == 0x1F && (data[1] & 0xFF) == 0x8B;
+    }
+
+    /** Decodes either format; the checksum is verified before any item is parsed. */
+    public static EquipmentSnapshot decode(byte[] data, RegistryAccess registries) throws IOException {
+        if (isLegacy(data)) return fromLegacyTag(readLegacyTag(data), registries);
+
+        Frame frame = readFrame(data);
+        return readBody(frame.body(), frame.version(), registries);
+    }
+
+    /**
+     * Checks a payload without building any item (no registries needed): header, checksum
+     * and deflate stream for the binary format, NBT structure for legacy files.
+     * Returns the schema version, or 0 for legacy NBT.
+     */
+    public static int verify(byte[] data) throws IOException {
+        if (isLegacy(data)) {
+            readLegacyTag(data);
+            return 0;
+        }
+        return readFrame(data).version();
+    }
+
+    private record Frame(int version, byte[] body) {}
+
+    /** Validates the header and checksum and returns the (inflated) body. */
+    private static Frame readFrame(byte[] data) throws IOException {
+        ByteBuf in = Unpooled.wrappedBuffer(data);
+        if (in.readableBytes() < HEADER_SIZE + 1 || in.readInt() != MAGIC)
+            throw new CorruptDataException("Not an equipment file");
+
+        int version = in.readUnsignedByte();
+        if (version > VERSION) throw new CorruptDataException("Unsupported schema version " + version);
+
+        int flags = in.readUnsignedByte();
+        int expectedCrc = in.readInt();
+        int length = VarInt.read(in);
+        if (length < 0 || length != in.readableBytes()) throw new CorruptDataException("Truncated body");
+
+        byte[] body = new byte[length];
+        in.readBytes(body);
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != expectedCrc) throw new CorruptDataException("Checksum mismatch");
+
+        if ((flags & FLAG_DEFLATED) != 0) body = inflate(body);
+        return new Frame(version, body);
+    }
+
+    private static EquipmentSnapshot readBody(byte[] body, int version, RegistryAccess registries) throws IOException {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.wrappedBuffer(body), registries);
+        try {
+            long journalSeq = version >= 2 ? VarLong.read(buf) : 0L;
+
+            String[] strings = new String[VarInt.read(buf)];
+            for (int i = 0; i < strings.length; i++) strings[i] = buf.readUtf();
+
+            int groupCount = VarInt.read(buf);
+            List<EquipmentSnapshot.Group> groups = new ArrayList<>(groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                String key = strings[VarInt.read(buf)];
+                int size = VarInt.read(buf);
+                int count = VarInt.read(buf);
+                int[] slots = new int[count];
+                ItemStack[] stacks = new ItemStack[count];
+                for (int i = 0; i < count; i++) {
+                    slots[i] = VarInt.read(buf);
+                    stacks[i] = ItemStack.STREAM_CODEC.decode(buf);
+                }
+                groups.add(new EquipmentSnapshot.Group(key, size, slots, stacks));
+            }
+            return new EquipmentSnapshot(List.copyOf(groups), journalSeq);
+        } catch (RuntimeException e) {
+            // Stream codecs signal bad input with DecoderException / IndexOutOfBounds
+            throw new CorruptDataException("Malformed body: " + e.getMessage());
+        } finally {
+            buf.release();
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Legacy NBT (gzipped {Groups:[{GroupKey, Items:{Size, Items:[{Slot, ...}]}}]})
+    // ────────────────────────────────────────────────
+
+    public static CompoundTag readLegacyTag(byte[] data) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            CompoundTag tag = CompoundTag.TYPE.load(dis, NbtAccounter.unlimitedHeap());
+            if (!tag.contains("Groups", Tag.TAG_LIST)) throw new CorruptDataException("No equipment groups");
+            return tag;
+        }
+    }
+
+    /** Converts the old capability NBT into a snapshot (same rules as ItemStackHandler#deserializeNBT). */
+    public static EquipmentSnapshot fromLegacyTag(CompoundTag tag, HolderLookup.Provider registries) {
+        ListTag groupList = tag.getList("Groups", Tag.TAG_COMPOUND);
+        List<EquipmentSnapshot.Group> groups = new ArrayList<>(groupList.size());
+
+        for (int g = 0; g < groupList.size(); g++) {
+            CompoundTag groupTag = groupList.getCompound(g);
+            CompoundTag items = groupTag.getCompound("Items");
+            ListTag itemList = items.getList("Items", Tag.TAG_COMPOUND);
+            int size = items.contains("Size", Tag.TAG_INT) ? items.getInt("Size") : Math.max(1, itemList.size());
+
+            int[] slots = new int[itemList.size()];
+            ItemStack[] stacks = new ItemStack[itemList.size()];
+            int n = 0;
+            for (int i = 0; i < itemList.size(); i++) {
+                CompoundTag itemTag = itemList.getCompound(i);
+                int slot = itemTag.getInt("Slot");
+                if (slot < 0 || slot >= size) continue;
+                ItemStack stack = ItemStack.parseOptional(registries, itemTag);
+                if (stack.isEmpty()) continue;
+                slots[n] = slot;
+                stacks[n] = stack;
+                n++;
+            }
+            groups.add(new EquipmentSnapshot.Group(groupTag.getString("GroupKey"), size,
+                    Arrays.copyOf(slots, n), Arrays.copyOf(stacks, n)));
+        }
+        return new EquipmentSnapshot(List.copyOf(groups));
+    }
+
+    // ────────────────────────────────────────────────
+    // Compression helpers
+    // ────────────────────────────────────────────────
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) out.write(chunk, 0, deflater.deflate(chunk));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws CorruptDataException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new CorruptDataException("Truncated deflate stream");
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new CorruptDataException("Bad deflate stream: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,60 +1,175 @@
 package net.chriskatze.catocraftmod.capability;
 
 import net.chriskatze.catocraftmod.CatocraftMod;
-import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.NbtAccounter;
-import net.minecraft.server.level.ServerLevel;
+import net.chriskatze.catocraftmod.capability.store.EquipmentStore;
+import net.chriskatze.catocraftmod.capability.store.FileEquipmentStore;
+import net.chriskatze.catocraftmod.capability.store.PackedEquipmentStore;
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.storage.LevelResource;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 import net.neoforged.neoforge.event.server.ServerStoppedEvent;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.security.DigestOutputStream;
+import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.concurrent.ExecutorService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 
 /**
  * Handles persistent save/load for the unified PlayerEquipmentCapability.
  * Performs async I/O with SHA-256 verification and rolling backups.
+ * The digest of every written file is kept per player, so unchanged
+ * payloads are detected in memory without touching the disk.
+ *
+ * Payloads use the binary {@link EquipmentCodec} format (legacy gzipped NBT is still read)
+ * and live in an {@link EquipmentStore}: per-player files by default, or the packed
+ * append-only store for very large player bases.
+ *
+ * Loads are fully off-thread: reading, backup fallback and decoding happen on
+ * the IO thread, the server thread only applies the decoded snapshot. While a load
+ * is pending the capability rejects equip actions and is never saved.
+ *
+ * Between snapshots every slot change is appended to a per-player {@link EquipmentJournal};
+ * a written snapshot folds the journal, and a load replays whatever the snapshot misses.
+ *
+ * Loads start during login, as soon as the UUID is verified ({@link #prefetch}); when the
+ * player entity is created the decoded data is usually ready and applied in place.
  */
 @EventBusSubscriber(modid = CatocraftMod.MOD_ID)
 public class EquipmentDataHandler {
 
-    private static final String FILE_SUFFIX = "equipment";
-    private static final int BACKUP_COUNT = 5;
-    private static final int BACKUP_MAX_AGE_DAYS = 30;
-    private static final NbtAccounter UNLIMITED = NbtAccounter.unlimitedHeap();
-    private static ExecutorService IO_EXECUTOR = createExecutor();
+    static final String STORE_DIR = "catocraftmod_equipment";
+    private static final String JOURNAL_DIR = "journal";
+
+    // Backend for the current server (see EquipmentIOConfig#getStore); closed on server stop
+    private static EquipmentStore STORE;
+    private static MinecraftServer STORE_SERVER;
+    // Per-file layout of the current server (the store itself, or the packed store's fallback)
+    private static FileEquipmentStore FILES;
+    // Slot-change journal for the current server (null when disabled in EquipmentIOConfig)
+    private static EquipmentJournal JOURNAL;
+    // Periodic store maintenance (backup pruning / compaction), kept off the save path
+    private static ScheduledExecutorService SWEEPER;
+
+    // Striped per-UUID worker pool, created from EquipmentIOConfig on first use / after a shutdown
+    private static EquipmentIOExecutor IO_EXECUTOR;
+
+    /** Digest + size of an encoded equipment file. */
+    private record ContentStamp(byte[] digest, long size) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContentStamp other && size == other.size && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(digest) + Long.hashCode(size);
+        }
+    }
+
+    private record EncodedPayload(byte[] bytes, ContentStamp stamp) {}
+
+    // At most one pending write per player; newer snapshots replace queued ones
+    private static final EquipmentSaveQueue SAVE_QUEUE =
+            new EquipmentSaveQueue(EquipmentDataHandler::getExecutor, EquipmentDataHandler::writeSave);
+
+    // Loads started during login (see ServerLoginEquipmentPrefetchMixin), taken by onPlayerLoad
+    private static final EquipmentPrefetch<LoadedSnapshot> PREFETCH = new EquipmentPrefetch<>();
+
+    // Last content written to (or loaded from) each player's main file, so saves can skip identical payloads
+    private static final Map<UUID, ContentStamp> LAST_WRITTEN = new ConcurrentHashMap<>();
+
+    private static synchronized EquipmentIOExecutor getExecutor() {
+        if (IO_EXECUTOR == null || IO_EXECUTOR.isShutdown()) {
+            if (IO_EXECUTOR != null) CatocraftMod.LOGGER.info("[EquipmentData] Executor terminated — recreating thread pool.");
+            IO_EXECUTOR = EquipmentIOExecutor.fromConfig();
+            CatocraftMod.LOGGER.debug("[EquipmentData] IO pool: {} worker(s), queue {} each, backpressure {}",
+                    EquipmentIOConfig.getWorkerThreads(), EquipmentIOConfig.getQueueCapacity(), EquipmentIOConfig.getBackpressure());
+        }
+        return IO_EXECUTOR;
+    }
+
+    /** Opens the configured store for this server on first use. */
+    private static synchronized EquipmentStore getStore(MinecraftServer server) {
+        if (STORE != null && STORE_SERVER == server) return STORE;
+        closeStore();
+
+        FileEquipmentStore files = new FileEquipmentStore(server.getWorldPath(LevelResource.PLAYER_DATA_DIR).toFile());
+        EquipmentStore store = files;
+        if (EquipmentIOConfig.getStore() == EquipmentIOConfig.Store.PACKED) {
+            try {
+                store = new PackedEquipmentStore(server.getWorldPath(LevelResource.ROOT).resolve(STORE_DIR), EquipmentIOConfig.getPackedShards(), files);
+            } catch (IOException e) {
+                CatocraftMod.LOGGER.error("[EquipmentData] Failed to open packed store, falling back to per-file layout.", e);
+            }
+        }
+        CatocraftMod.LOGGER.info("[EquipmentData] Using '{}' equipment store.", store.name());
+
+        STORE = store;
+        STORE_SERVER = server;
+        FILES = files;
+        JOURNAL = EquipmentIOConfig.isJournalEnabled()
+                ? new EquipmentJournal(server.getWorldPath(LevelResource.ROOT).resolve(STORE_DIR).resolve(JOURNAL_DIR), EquipmentDataHandler::getExecutor)
+                : null;
+        scheduleSweep(store);
+        return store;
+    }
+
+    private static synchronized EquipmentJournal getJournal(MinecraftServer server) {
+        getStore(server);
+        return JOURNAL;
+    }
 
-    private static ExecutorService createExecutor() {
-        return Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "EquipmentData-IO-Thread");
+    private static void scheduleSweep(EquipmentStore store) {
+        long period = EquipmentIOConfig.getBackupSweepMinutes();
+        SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "EquipmentData-Sweep");
             t.setDaemon(true);
             return t;
         });
+        SWEEPER.scheduleWithFixedDelay(() -> {
+            try {
+                store.sweep((id, task) -> getExecutor().execute(id, task));
+            } catch (Exception e) {
+                CatocraftMod.LOGGER.error("[EquipmentData] Store sweep failed", e);
+            }
+        }, Math.min(10, period), period, TimeUnit.MINUTES);
     }
 
-    private static synchronized ExecutorService getExecutor() {
-        if (IO_EXECUTOR == null || IO_EXECUTOR.isShutdown() || IO_EXECUTOR.isTerminated()) {
-            CatocraftMod.LOGGER.warn("[EquipmentData] Executor terminated — recreating thread pool.");
-            IO_EXECUTOR = createExecutor();
-        }
-        return IO_EXECUTOR;
+    private static synchronized void stopSweep() {
+        if (SWEEPER == null) return;
+        SWEEPER.shutdownNow();
+        SWEEPER = null;
+    }
+
+    private static synchronized void closeStore() {
+        stopSweep();
+        if (STORE == null) return;
+        STORE.close();
+        STORE = null;
+        STORE_SERVER = null;
+        FILES = null;
+        JOURNAL = null;
     }
 
     // --------------------------------------------------
@@ -66,17 +181,20 @@ public class EquipmentDataHandler {
         Player player = event.getEntity();
         PlayerEquipmentCapability cap = getCap(player);
         if (cap == null) return;
+        if (cap.isLoading()) {
+            CatocraftMod.LOGGER.debug("[EquipmentData] Skipping save (still loading) for {}", player.getName().getString());
+            return;
+        }
 
-        CompoundTag tag = cap.serializeNBT(player.registryAccess());
-        if (isEmpty(tag)) {
+        EquipmentSnapshot snapshot = cap.snapshot();
+        if (snapshot.isEmpty()) {
             CatocraftMod.LOGGER.debug("[EquipmentData] Skipping save (empty) for {}", player.getName().getString());
             return;
         }
 
-        File mainFile = event.getPlayerFile(FILE_SUFFIX);
-        File tempFile = new File(mainFile.getAbsolutePath() + ".tmp");
-
-        asyncSave(tag, mainFile, tempFile, player);
+        PREFETCH.invalidate(player.getUUID());
+        SAVE_QUEUE.enqueue(new EquipmentSaveQueue.PendingSave(player.getUUID(), stampJournal(player, snapshot),
+                player.registryAccess(), getStore(player.getServer()), player.getName().getString(), false));
     }
 
     @SubscribeEvent
@@ -84,95 +202,291 @@ public class EquipmentDataHandler {
         if (!(event.getEntity() instanceof ServerPlayer player)) return;
         CatocraftMod.LOGGER.debug("[EquipmentData] Logout save for {}", player.getName().getString());
         requestImmediateSave(player);
+
+        // Barrier: the final snapshot is written before anything else queued for this player
+        String name = player.getName().getString();
+        UUID id = player.getUUID();
+        EquipmentStore store = getStore(player.getServer());
+        SAVE_QUEUE.flush(id).whenComplete((ignored, error) -> {
+            // Final save done → the stamp and digests are only needed again after the next load, which re-seeds them
+            LAST_WRITTEN.remove(id);
+            store.forget(id);
+            if (error != null) CatocraftMod.LOGGER.error("[EquipmentData] Logout flush failed for {}", name, error);
+            else CatocraftMod.LOGGER.debug("[EquipmentData] Logout flush completed for {}", name);
+        });
+
+        EquipmentJournal journal = getJournal(player.getServer());
+        if (journal != null) journal.release(id);
     }
 
-    private static void asyncSave(CompoundTag tag, File mainFile, File tempFile, Player player) {
-        getExecutor().submit(() -> {
-            if (isEmpty(tag)) {
-                CatocraftMod.LOGGER.debug("[EquipmentData] Empty tag, skipping save for {}", player.getName().getString());
-                if (tempFile.exists()) tempFile.delete();
-                return;
-            }
+    /**
+     * IO thread: encodes the snapshot in memory and writes it only if its digest differs
+     * from the last one recorded for this player — the existing file is never re-read.
+     */
+    private static void writeSave(EquipmentSaveQueue.PendingSave save) {
+        UUID id = save.id();
+        EquipmentStore store = save.store();
+        String name = save.name();
+
+        if (save.snapshot().isEmpty()) {
+            CatocraftMod.LOGGER.debug("[EquipmentData] Empty snapshot, skipping save for {}", name);
+            return;
+        }
 
-            byte[] newHash = serializeToFileAndHash(tag, tempFile);
-            if (newHash == null) return;
+        EncodedPayload payload = encode(save.snapshot(), save.registries());
+        if (payload == null) return;
 
-            if (mainFile.exists() && Arrays.equals(newHash, hashFile(mainFile))) {
-                CatocraftMod.LOGGER.debug("[EquipmentData] Data unchanged for {}, skipping save.", player.getName().getString());
-                tempFile.delete();
-                return;
-            }
+        ContentStamp previous = LAST_WRITTEN.get(id);
+        if (previous != null && previous.equals(payload.stamp()) && store.contains(id)) {
+            CatocraftMod.LOGGER.debug("[EquipmentData] Data unchanged for {}, skipping save.", name);
+            foldJournal(save);
+            return;
+        }
 
-            rotateAndBackup(mainFile);
+        try {
+            store.write(id, payload.bytes());
+            LAST_WRITTEN.put(id, payload.stamp());
+            foldJournal(save);
+            if (save.forced()) CatocraftMod.LOGGER.debug("[EquipmentData] Forced save completed for {}", name);
+            else CatocraftMod.LOGGER.info("[EquipmentData] Saved unified equipment for {}", name);
+        } catch (IOException e) {
+            // Unknown stored state → make sure the next save is not skipped
+            LAST_WRITTEN.remove(id);
+            CatocraftMod.LOGGER.error("[EquipmentData] Failed to finalize save for {}", name, e);
+        }
+    }
 
-            try {
-                Files.move(tempFile.toPath(), mainFile.toPath(),
-                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                CatocraftMod.LOGGER.info("[EquipmentData] Saved unified equipment for {}", player.getName().getString());
-            } catch (IOException e) {
-                CatocraftMod.LOGGER.error("[EquipmentData] Failed to finalize save for {}", player.getName().getString(), e);
-            }
-        });
+    /**
+     * The player's stored payload was replaced outside the save path (e.g. by {@link EquipmentDataTool}),
+     * so the next save must not be skipped as unchanged.
+     */
+    static void forgetWritten(UUID id) {
+        LAST_WRITTEN.remove(id);
+    }
+
+    /** IO thread: the stored snapshot now covers the journal up to its sequence. */
+    private static void foldJournal(EquipmentSaveQueue.PendingSave save) {
+        EquipmentJournal journal = JOURNAL;
+        if (journal != null) journal.fold(save.id(), save.snapshot().journalSeq());
+    }
+
+    // --------------------------------------------------
+    // JOURNAL
+    // --------------------------------------------------
+
+    /**
+     * Server thread: records a single slot change in the player's journal so it survives
+     * a crash before the next snapshot is written. Called by the capability's change tracking.
+     */
+    public static void journalSlot(ServerPlayer player, String groupKey, int slot, ItemStack stack) {
+        MinecraftServer server = player.getServer();
+        if (server == null) return;
+        PREFETCH.invalidate(player.getUUID());
+        EquipmentJournal journal = getJournal(server);
+        if (journal != null) journal.append(player.getUUID(), groupKey, slot, stack.copy(), player.registryAccess());
+    }
+
+    private static EquipmentSnapshot stampJournal(ServerPlayer player, EquipmentSnapshot snapshot) {
+        EquipmentJournal journal = getJournal(player.getServer());
+        return journal != null ? snapshot.withJournalSeq(journal.currentSeq(player.getUUID())) : snapshot;
     }
 
     // --------------------------------------------------
     // LOAD
     // --------------------------------------------------
 
+    /**
+     * Decoded content of one equipment file, produced on the IO thread.
+     * The snapshot is freshly decoded and owned by nobody else, so it can be
+     * handed to the server thread as-is.
+     */
+    private record LoadedSnapshot(EquipmentSnapshot snapshot, String source, int size, boolean legacy) {}
+
     @SubscribeEvent
     public static void onPlayerLoad(PlayerEvent.LoadFromFile event) {
         if (!(event.getEntity() instanceof ServerPlayer player)) return;
 
-        File mainFile = event.getPlayerFile(FILE_SUFFIX);
-        File tempFile = new File(mainFile.getAbsolutePath() + ".tmp");
-        recoverTempFile(mainFile, tempFile, player);
-
         PlayerEquipmentCapability cap = getCap(player);
-        if (cap != null) asyncLoad(mainFile, cap, player);
-    }
+        if (cap == null) return;
 
-    private static void asyncLoad(File mainFile, PlayerEquipmentCapability cap, ServerPlayer player) {
-        getExecutor().submit(() -> {
-            File[] candidates = new File[BACKUP_COUNT + 1];
-            candidates[0] = mainFile;
-            for (int i = 1; i <= BACKUP_COUNT; i++)
-                candidates[i] = new File(mainFile.getAbsolutePath() + ".bak" + i);
+        MinecraftServer server = player.getServer();
+        CompletableFuture<LoadedSnapshot> prefetched = PREFETCH.take(player.getUUID());
+        if (prefetched != null && prefetched.isDone() && !prefetched.isCompletedExceptionally()) {
+            // Data is already decoded → the capability is complete before any login handler runs
+            applyPrefetched(cap, player, prefetched.join());
+            return;
+        }
 
-            ServerLevel level = (ServerLevel) player.level();
-            level.getServer().execute(() -> {
-                boolean loaded = false;
+        // Equips are rejected and saves skipped until the snapshot has been applied
+        cap.beginLoading();
+        if (prefetched != null) {
+            // A failed or stuck prefetch falls back to a regular load, so finishLoading() is always reached
+            prefetched.orTimeout(EquipmentIOConfig.getPrefetchTtlSeconds(), TimeUnit.SECONDS)
+                    .whenComplete((result, error) -> server.execute(() -> {
+                        if (error == null) {
+                            applySnapshot(cap, player, result);
+                            return;
+                        }
+                        CatocraftMod.LOGGER.warn("[EquipmentData] Prefetch for {} failed ({}), loading again.",
+                                player.getName().getString(), error.toString());
+                        asyncLoad(getStore(server), getJournal(server), cap, player);
+                    }));
+        } else {
+            asyncLoad(getStore(server), getJournal(server), cap, player);
+        }
+    }
 
-                for (File file : candidates) {
-                    if (!file.exists()) continue;
+    /**
+     * Starts loading a player's equipment as soon as the login has verified the profile,
+     * so it is usually decoded before the player entity is constructed. Called from
+     * {@code ServerLoginEquipmentPrefetchMixin}; safe to call from any thread.
+     */
+    public static void prefetch(MinecraftServer server, UUID id, String name) {
+        if (server == null) return;
+        CompletableFuture<LoadedSnapshot> future = PREFETCH.reserve(id);
+        if (future == null) return;
+
+        EquipmentStore store = getStore(server);
+        EquipmentJournal journal = getJournal(server);
+        RegistryAccess registries = server.registryAccess();
+        try {
+            getExecutor().execute(id, () -> future.complete(loadOnStripe(store, journal, id, registries, name)));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        CatocraftMod.LOGGER.debug("[EquipmentData] Prefetching equipment for {}", name);
+    }
 
-                    byte[] data = loadFileBytes(file);
-                    if (data == null) continue;
+    /**
+     * Reads, verifies and decodes the equipment file (with backup fallback) on the
+     * IO thread; only {@link #applySnapshot} runs on the server thread.
+     */
+    private static void asyncLoad(EquipmentStore store, EquipmentJournal journal, PlayerEquipmentCapability cap, ServerPlayer player) {
+        MinecraftServer server = player.getServer();
+        RegistryAccess registries = player.registryAccess();
+        String name = player.getName().getString();
 
-                    try (ByteArrayInputStream bais = new ByteArrayInputStream(data);
-                         GZIPInputStream gis = new GZIPInputStream(bais);
-                         DataInputStream dis = new DataInputStream(gis)) {
+        try {
+            getExecutor().execute(player.getUUID(), () -> {
+                LoadedSnapshot result = loadOnStripe(store, journal, player.getUUID(), registries, name);
+                server.execute(() -> applySnapshot(cap, player, result));
+            });
+        } catch (RejectedExecutionException e) {
+            // IO pool is gone (server stopping) → end the loading state rather than leave it forever
+            CatocraftMod.LOGGER.error("[EquipmentData] Could not schedule equipment load for {}", name, e);
+            applySnapshot(cap, player, null);
+        }
+    }
 
-                        CompoundTag tag = CompoundTag.TYPE.load(dis, UNLIMITED);
-                        cap.deserializeNBT(player.registryAccess(), tag);
-                        loaded = true;
+    /** IO thread (the player's stripe): the complete read side of a load. Never throws. */
+    private static LoadedSnapshot loadOnStripe(EquipmentStore store, EquipmentJournal journal, UUID id,
+                                               RegistryAccess registries, String name) {
+        try {
+            // Barrier: a write still queued for this player must land before we read
+            SAVE_QUEUE.drainNow(id);
+            if (journal != null) journal.drainNow(id);
+            store.recover(id);
+            LoadedSnapshot snapshot = readSnapshot(store, id, registries, name);
+            if (journal != null) snapshot = replayJournal(journal, id, snapshot, registries, name);
+            return snapshot;
+        } catch (Exception e) {
+            CatocraftMod.LOGGER.error("[EquipmentData] Load pipeline failed for {}", name, e);
+            return null;
+        }
+    }
 
-                        if (!file.equals(mainFile)) {
-                            Files.write(mainFile.toPath(), data);
-                            CatocraftMod.LOGGER.info("[EquipmentData] Restored main file from backup {}", file.getName());
-                        }
+    /** IO thread: returns the newest stored generation that decodes to valid equipment data. */
+    private static LoadedSnapshot readSnapshot(EquipmentStore store, UUID id, RegistryAccess registries, String name) {
+        LAST_WRITTEN.remove(id);
+        for (int generation = 0; generation < store.generations(); generation++) {
+            byte[] data;
+            try {
+                data = store.read(id, generation);
+            } catch (IOException e) {
+                CatocraftMod.LOGGER.warn("[EquipmentData] Failed to read {}", store.describe(id, generation), e);
+                continue;
+            }
+            if (data == null) continue;
+
+            String source = store.describe(id, generation);
+            EquipmentSnapshot decoded;
+            try {
+                // Verifies header + checksum (or parses legacy gzipped NBT) before any item is built
+                decoded = EquipmentCodec.decode(data, registries);
+            } catch (IOException e) {
+                CatocraftMod.LOGGER.warn("[EquipmentData] Failed to deserialize {}. Trying next backup...", source, e);
+                continue;
+            }
 
-                        cap.reapplyAttributesOnLogin();
-                        CatocraftMod.LOGGER.debug("[EquipmentData] Loaded unified equipment for {}: {}", player.getName().getString(), tag);
-                        break;
-                    } catch (IOException e) {
-                        CatocraftMod.LOGGER.warn("[EquipmentData] Failed to deserialize {}. Trying next backup...", file.getName(), e);
-                    }
+            boolean stored = true;
+            if (generation > 0) {
+                try {
+                    store.promote(id, generation, data);
+                    CatocraftMod.LOGGER.info("[EquipmentData] Restored main file from backup {}", source);
+                } catch (IOException e) {
+                    stored = false;
+                    CatocraftMod.LOGGER.error("[EquipmentData] Failed to restore main file from {} for {}", source, name, e);
                 }
+            }
 
-                if (!loaded)
-                    CatocraftMod.LOGGER.warn("[EquipmentData] No valid equipment data found for {}", player.getName().getString());
-            });
-        });
+            // Seed the hash index with what the store now holds as current
+            ContentStamp stamp = stored ? stampOf(data) : null;
+            if (stamp != null) LAST_WRITTEN.put(id, stamp);
+            return new LoadedSnapshot(decoded, source, data.length, EquipmentCodec.isLegacy(data));
+        }
+        return null;
+    }
+
+    /** IO thread: applies journal entries newer than the stored snapshot (slot changes lost by a crash). */
+    private static LoadedSnapshot replayJournal(EquipmentJournal journal, UUID id, LoadedSnapshot loaded,
+                                                RegistryAccess registries, String name) {
+        EquipmentSnapshot base = loaded != null ? loaded.snapshot() : EquipmentSnapshot.EMPTY;
+        List<EquipmentJournal.Entry> entries = journal.load(id, base.journalSeq(), registries);
+        EquipmentSnapshot replayed = EquipmentJournal.replay(base, entries);
+        if (replayed == base) return loaded;
+
+        CatocraftMod.LOGGER.info("[EquipmentData] Replayed journal for {} (seq {} → {})", name, base.journalSeq(), replayed.journalSeq());
+        return loaded != null
+                ? new LoadedSnapshot(replayed, loaded.source() + " + journal", loaded.size(), loaded.legacy())
+                : new LoadedSnapshot(replayed, "journal", 0, false);
+    }
+
+    /** Server thread: the only part of a load that touches the capability. */
+    private static void applySnapshot(PlayerEquipmentCapability cap, ServerPlayer player, LoadedSnapshot snapshot) {
+        try {
+            if (player.hasDisconnected()) {
+                CatocraftMod.LOGGER.debug("[EquipmentData] {} left before equipment finished loading, discarding.", player.getName().getString());
+                return;
+            }
+
+            if (snapshot == null) {
+                CatocraftMod.LOGGER.warn("[EquipmentData] No valid equipment data found for {}", player.getName().getString());
+                return;
+            }
+
+            cap.applySnapshot(snapshot.snapshot());
+            cap.reapplyAttributesOnLogin();
+            CatocraftMod.LOGGER.debug("[EquipmentData] Loaded unified equipment for {} from {} ({} bytes{})",
+                    player.getName().getString(), snapshot.source(), snapshot.size(),
+                    snapshot.legacy() ? ", legacy NBT — migrates on next save" : "");
+        } finally {
+            cap.finishLoading();
+        }
+    }
+
+    /**
+     * Server thread, inside {@code LoadFromFile}: applies a finished prefetch right away.
+     * Attributes, health and the client sync follow from the regular login handlers.
+     */
+    private static void applyPrefetched(PlayerEquipmentCapability cap, ServerPlayer player, LoadedSnapshot snapshot) {
+        if (snapshot == null) {
+            CatocraftMod.LOGGER.warn("[EquipmentData] No valid equipment data found for {}", player.getName().getString());
+            return;
+        }
+        cap.applySnapshot(snapshot.snapshot());
+        CatocraftMod.LOGGER.debug("[EquipmentData] Applied prefetched equipment for {} from {} ({} bytes)",
+                player.getName().getString(), snapshot.source(), snapshot.size());
     }
 
     // --------------------------------------------------
@@ -183,35 +497,67 @@ public class EquipmentDataHandler {
         PlayerEquipmentCapability cap = getCap(player);
         if (cap == null) return;
 
-        player.getServer().execute(() -> {
-            File mainFile = new File(
-                    player.server.getWorldPath(LevelResource.PLAYER_DATA_DIR).toFile(),
-                    player.getStringUUID() + "." + FILE_SUFFIX
-            );
-            File tempFile = new File(mainFile.getAbsolutePath() + ".tmp");
+        Runnable save = () -> {
+            // Never write the placeholder state over data that is still being read
+            if (cap.isLoading()) return;
 
-            CompoundTag tag = cap.serializeNBT(player.registryAccess());
-            if (isEmpty(tag)) return;
+            EquipmentSnapshot snapshot = cap.snapshot();
+            if (snapshot.isEmpty()) return;
 
-            getExecutor().submit(() -> {
-                byte[] newHash = serializeToFileAndHash(tag, tempFile);
-                if (newHash == null) return;
+            PREFETCH.invalidate(player.getUUID());
+            SAVE_QUEUE.enqueue(new EquipmentSaveQueue.PendingSave(player.getUUID(), stampJournal(player, snapshot),
+                    player.registryAccess(), getStore(player.getServer()), player.getName().getString(), true));
+        };
 
-                if (mainFile.exists() && Arrays.equals(newHash, hashFile(mainFile))) {
-                    tempFile.delete();
-                    return;
-                }
+        // Logout already runs on the server thread; snapshot right away so the flush barrier sees it
+        if (player.getServer().isSameThread()) save.run();
+        else player.getServer().execute(save);
+    }
 
-                rotateAndBackup(mainFile);
-                try {
-                    Files.move(tempFile.toPath(), mainFile.toPath(),
-                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                    CatocraftMod.LOGGER.debug("[EquipmentData] Forced save completed for {}", player.getName().getString());
-                } catch (IOException e) {
-                    CatocraftMod.LOGGER.error("[EquipmentData] Forced save failed for {}", player.getName().getString(), e);
-                }
-            });
-        });
+    /** Current save queue metrics (depth, coalesced snapshots, ...). */
+    public static String getSaveQueueStats() {
+        EquipmentIOExecutor io = IO_EXECUTOR;
+        EquipmentJournal journal = JOURNAL;
+        return SAVE_QUEUE.stats() + (io != null ? ", ioQueued=" + io.queuedTasks() + ", ioBackpressured=" + io.backpressured() : "")
+                + (journal != null ? ", " + journal.stats() : "") + ", " + PREFETCH.stats();
+    }
+
+    // --------------------------------------------------
+    // MAINTENANCE
+    // --------------------------------------------------
+
+    private static final AtomicBoolean MAINTENANCE_RUNNING = new AtomicBoolean();
+
+    /**
+     * Runs {@link EquipmentDataTool} over all stored players on a background thread; each
+     * player's work is queued on its IO stripe, so it never overlaps that player's saves.
+     * Only a fraction of the queue capacity is used at a time, leaving room for live saves.
+     * Online players are verified but not rewritten. Returns false if a run is already active.
+     */
+    public static boolean startMaintenance(MinecraftServer server, EquipmentDataTool.Mode mode, boolean dryRun, Consumer<String> progress) {
+        if (!MAINTENANCE_RUNNING.compareAndSet(false, true)) return false;
+
+        EquipmentStore store = getStore(server);
+        FileEquipmentStore files = FILES;
+        RegistryAccess registries = server.registryAccess();
+        Set<UUID> online = new HashSet<>();
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) online.add(player.getUUID());
+
+        Thread worker = new Thread(() -> {
+            try {
+                EquipmentDataTool.Report report = new EquipmentDataTool(files, store, registries, mode, dryRun, online::contains)
+                        .run((id, task) -> getExecutor().execute(id, task), progress);
+                CatocraftMod.LOGGER.info("[EquipmentData] Maintenance finished: {}", report);
+            } catch (Exception e) {
+                CatocraftMod.LOGGER.error("[EquipmentData] Maintenance run failed", e);
+                progress.accept("Failed: " + e.getMessage());
+            } finally {
+                MAINTENANCE_RUNNING.set(false);
+            }
+        }, "EquipmentData-Maintenance");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
     }
 
     // --------------------------------------------------
@@ -224,116 +570,32 @@ public class EquipmentDataHandler {
         PlayerEquipmentCapability cap = sp.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
         if (cap != null) {
             cap.setOwner(sp);
-            cap.initializeGroupsIfMissing();
+            cap.ensureLayoutCurrent();
         }
         return cap;
     }
 
-    private static boolean isEmpty(CompoundTag tag) {
-        return tag == null || tag.isEmpty() ||
-                !tag.contains("Groups") || tag.getList("Groups", 10).isEmpty();
-    }
-
-    private static byte[] serializeToFileAndHash(CompoundTag tag, File file) {
+    /** Encodes the snapshot in the binary format and digests the exact bytes that would be written. */
+    private static EncodedPayload encode(EquipmentSnapshot snapshot, RegistryAccess registries) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            try (FileOutputStream fos = new FileOutputStream(file);
-                 DigestOutputStream dos = new DigestOutputStream(fos, digest);
-                 GZIPOutputStream gos = new GZIPOutputStream(dos);
-                 DataOutputStream dataOut = new DataOutputStream(gos)) {
-                tag.write(dataOut);
-                dataOut.flush();
-                gos.finish();
-            }
-            return digest.digest();
-        } catch (IOException | NoSuchAlgorithmException e) {
+            byte[] bytes = EquipmentCodec.encode(snapshot, registries);
+            ContentStamp stamp = stampOf(bytes);
+            return stamp != null ? new EncodedPayload(bytes, stamp) : null;
+        } catch (Exception e) {
             CatocraftMod.LOGGER.error("[EquipmentData] Failed to serialize data", e);
             return null;
         }
     }
 
-    private static byte[] hashFile(File file) {
-        byte[] bytes = loadFileBytes(file);
-        if (bytes == null) return null;
+    private static ContentStamp stampOf(byte[] bytes) {
         try {
-            return MessageDigest.getInstance("SHA-256").digest(bytes);
+            return new ContentStamp(MessageDigest.getInstance("SHA-256").digest(bytes), bytes.length);
         } catch (NoSuchAlgorithmException e) {
             CatocraftMod.LOGGER.error("SHA-256 not available!", e);
             return null;
         }
     }
 
-    private static byte[] loadFileBytes(File file) {
-        try {
-            return Files.exists(file.toPath()) ? Files.readAllBytes(file.toPath()) : null;
-        } catch (IOException e) {
-            CatocraftMod.LOGGER.warn("[EquipmentData] Failed to read {}", file.getName(), e);
-            return null;
-        }
-    }
-
-    private static void recoverTempFile(File mainFile, File tempFile, ServerPlayer player) {
-        if (!tempFile.exists()) return;
-        try {
-            File safeTemp = new File(mainFile.getAbsolutePath() + ".recovered.tmp");
-            Files.move(tempFile.toPath(), safeTemp.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            Files.move(safeTemp.toPath(), mainFile.toPath(),
-                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            CatocraftMod.LOGGER.warn("[EquipmentData] Recovered leftover save for {}", player.getName().getString());
-        } catch (IOException e) {
-            CatocraftMod.LOGGER.error("[EquipmentData] Failed to recover save for {}", player.getName().getString(), e);
-        }
-    }
-
-    private static void rotateAndBackup(File mainFile) {
-        if (!mainFile.exists()) return;
-
-        for (int i = BACKUP_COUNT; i > 0; i--) {
-            File older = new File(mainFile.getAbsolutePath() + ".bak" + i);
-            if (!older.exists()) continue;
-            if (i == BACKUP_COUNT) older.delete();
-            else older.renameTo(new File(mainFile.getAbsolutePath() + ".bak" + (i + 1)));
-        }
-
-        File backup1Temp = new File(mainFile.getAbsolutePath() + ".bak1.tmp");
-        File backup1 = new File(mainFile.getAbsolutePath() + ".bak1");
-
-        try (FileInputStream fis = new FileInputStream(mainFile);
-             FileOutputStream fos = new FileOutputStream(backup1Temp)) {
-            fis.transferTo(fos);
-            fos.flush();
-        } catch (IOException e) {
-            CatocraftMod.LOGGER.error("[EquipmentData] Failed to create backup temp file: {}", backup1Temp.getName(), e);
-            return;
-        }
-
-        try {
-            Files.move(backup1Temp.toPath(), backup1.toPath(),
-                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            CatocraftMod.LOGGER.info("[EquipmentData] Created new backup: {} ({} bytes)", backup1.getName(), backup1.length());
-        } catch (IOException e) {
-            CatocraftMod.LOGGER.error("[EquipmentData] Failed to finalize backup: {}", backup1.getName(), e);
-        }
-
-        pruneOldBackups(mainFile);
-    }
-
-    private static void pruneOldBackups(File mainFile) {
-        Instant cutoff = Instant.now().minus(BACKUP_MAX_AGE_DAYS, ChronoUnit.DAYS);
-        int existingBackups = 0;
-        for (int i = 1; i <= BACKUP_COUNT; i++)
-            if (new File(mainFile.getAbsolutePath() + ".bak" + i).exists()) existingBackups++;
-
-        for (int i = BACKUP_COUNT; i >= 1; i--) {
-            File backup = new File(mainFile.getAbsolutePath() + ".bak" + i);
-            if (!backup.exists()) continue;
-            if (Instant.ofEpochMilli(backup.lastModified()).isBefore(cutoff) && existingBackups > 1) {
-                if (backup.delete()) CatocraftMod.LOGGER.info("[EquipmentData] Pruned old backup: {}", backup.getName());
-                existingBackups--;
-            }
-        }
-    }
-
     // --------------------------------------------------
     // SHUTDOWN
     // --------------------------------------------------
@@ -341,20 +603,22 @@ public class EquipmentDataHandler {
     @SubscribeEvent
     public static void onServerStop(ServerStoppedEvent event) {
         CatocraftMod.LOGGER.info("[EquipmentData] Server stopping, shutting down executor...");
+        stopSweep();
+        int pending = SAVE_QUEUE.flushAll(EquipmentIOConfig.getShutdownTimeoutSeconds(), TimeUnit.SECONDS);
+        CatocraftMod.LOGGER.info("[EquipmentData] Flushed {} pending save(s) ({})", pending, SAVE_QUEUE.stats());
         shutdown();
+        closeStore();
+        PREFETCH.clear();
+        LAST_WRITTEN.clear();
     }
 
-    public static void shutdown() {
-        IO_EXECUTOR.shutdown();
-        try {
-            if (!IO_EXECUTOR.awaitTermination(10, TimeUnit.SECONDS)) {
-                CatocraftMod.LOGGER.warn("[EquipmentData] Executor did not terminate in 10s, forcing shutdown.");
-                IO_EXECUTOR.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            CatocraftMod.LOGGER.error("[EquipmentData] Interrupted during shutdown.", e);
-            IO_EXECUTOR.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+    /** Drains the IO pool (bounded by the configured timeout) and logs what could not be finished. */
+    public static synchronized void shutdown() {
+        if (IO_EXECUTOR == null || IO_EXECUTOR.isShutdown()) return;
+
+        EquipmentIOExecutor.DrainReport report =
+                IO_EXECUTOR.shutdown(EquipmentIOConfig.getShutdownTimeoutSeconds(), TimeUnit.SECONDS);
+        if (report.clean()) CatocraftMod.LOGGER.info("[EquipmentData] IO pool {}", report);
+        else CatocraftMod.LOGGER.warn("[EquipmentData] IO pool {} (backpressured: {})", report, IO_EXECUTOR.backpressured());
     }
 }
\ No newline at end of file
@@ -0,0 +1,463 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.chriskatze.catocraftmod.capability.store.EquipmentStore;
+import net.chriskatze.catocraftmod.capability.store.FileEquipmentStore;
+import net.chriskatze.catocraftmod.capability.store.PackedEquipmentStore;
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+import net.minecraft.core.RegistryAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 🛠️ Bulk maintenance for stored equipment data: scan, verify, migrate and compact.
+ *
+ * Works player by player: every UUID found in the per-file directory or in the packed
+ * store is handed to a dispatcher (the IO stripes on a running server, a private pool
+ * offline), so players are processed in parallel but never concurrently with their own
+ * saves. Only UUIDs are collected up front; payloads are read one player at a time, and
+ * at most {@link #maxInFlight()} players are queued at once so live IO keeps its room.
+ * Players with records in the packed store are checked there; the per-file layout is
+ * only their read-only fallback and is left alone.
+ *
+ * Modes:
+ *  - {@link Mode#VERIFY}  — read-only; checks every generation and reports
+ *  - {@link Mode#MIGRATE} — also restores broken main files from the newest valid backup
+ *                            and rewrites legacy / older-schema payloads (needs registries)
+ *  - {@link Mode#COMPACT} — also prunes redundant backups (duplicates, corrupt, beyond the
+ *                            configured generations) and compacts the packed store
+ *
+ * Runs from {@code /equipmentdata} or offline through {@link #main}.
+ */
+public final class EquipmentDataTool {
+
+    public enum Mode { VERIFY, MIGRATE, COMPACT }
+
+    // Progress lines are emitted at most this often
+    private static final long PROGRESS_INTERVAL_MILLIS = 2000;
+    // Backups up to this index are looked at; anything above the store's generations is stale
+    private static final int MAX_SCANNED_BACKUPS = 16;
+
+    /** Final counters of a run. */
+    public record Report(Mode mode, boolean dryRun, long players, long valid, long legacy, long outdated, long corrupt,
+                         long restored, long migrated, long skippedOnline, long backupsPruned,
+                         long bytesScanned, long bytesReclaimed, long elapsedMillis) {
+        @Override
+        public String toString() {
+            return mode + (dryRun ? " (dry run)" : "") + " — players=" + players + ", valid=" + valid
+                    + ", legacy=" + legacy + ", outdated=" + outdated + ", corrupt=" + corrupt
+                    + ", restored=" + restored + ", migrated=" + migrated + ", skippedOnline=" + skippedOnline
+                    + ", backupsPruned=" + backupsPruned + ", scanned=" + (bytesScanned / 1024) + " KiB"
+                    + ", reclaimed=" + (bytesReclaimed / 1024) + " KiB, elapsed=" + elapsedMillis + "ms";
+        }
+    }
+
+    private final FileEquipmentStore files;
+    private final EquipmentStore target;
+    private final RegistryAccess registries;
+    private final Mode mode;
+    private final boolean dryRun;
+    private final Predicate<UUID> online;
+
+    private final AtomicLong players = new AtomicLong();
+    private final AtomicLong valid = new AtomicLong();
+    private final AtomicLong legacy = new AtomicLong();
+    private final AtomicLong outdated = new AtomicLong();
+    private final AtomicLong corrupt = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong skippedOnline = new AtomicLong();
+    private final AtomicLong backupsPruned = new AtomicLong();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+
+    /**
+     * @param files      the per-file layout to scan
+     * @param target     where migrated payloads are written (the active store; may be {@code files})
+     * @param registries needed to rewrite payloads; {@code null} limits the run to frame checks
+     *                   and is rejected for {@link Mode#MIGRATE}
+     * @param online     players whose live state is authoritative — verified, but never rewritten
+     */
+    public EquipmentDataTool(FileEquipmentStore files, EquipmentStore target, RegistryAccess registries,
+                             Mode mode, boolean dryRun, Predicate<UUID> online) {
+        if (registries == null && mode == Mode.MIGRATE) {
+            throw new IllegalArgumentException("migrate needs the registries of a running server — use /equipmentdata migrate");
+        }
+        this.files = files;
+        this.target = target;
+        this.registries = registries;
+        this.mode = mode;
+        this.dryRun = dryRun;
+        this.online = online;
+    }
+
+    // ────────────────────────────────────────────────
+    // Run
+    // ────────────────────────────────────────────────
+
+    /**
+     * Processes every player found in the directory. {@code dispatcher} runs one player's
+     * task (ordered with that player's other IO); {@code progress} receives periodic status lines.
+     * Blocks until all players are done.
+     */
+    public Report run(BiConsumer<UUID, Runnable> dispatcher, Consumer<String> progress) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Set<UUID> ids = scanIds();
+        progress.accept("Found " + ids.size() + " player(s) with equipment data, mode " + mode + (dryRun ? " (dry run)" : ""));
+
+        CountDownLatch done = new CountDownLatch(ids.size());
+        Semaphore inFlight = new Semaphore(maxInFlight());
+        for (UUID id : ids) {
+            // Throttle: the stripes' queues are shared with live saves, journal writes and loads
+            while (!inFlight.tryAcquire(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                reportProgress(progress, ids.size());
+            }
+            try {
+                dispatcher.accept(id, () -> {
+                    try {
+                        processPlayer(id);
+                    } catch (Exception e) {
+                        CatocraftMod.LOGGER.error("[EquipmentTool] Failed to process {}", id, e);
+                    } finally {
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                done.countDown();
+                throw e;
+            }
+        }
+
+        while (!done.await(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            reportProgress(progress, ids.size());
+        }
+
+        if (mode == Mode.COMPACT && !dryRun && target instanceof PackedEquipmentStore packed) {
+            long reclaimed = packed.compactAll();
+            bytesReclaimed.addAndGet(reclaimed);
+            progress.accept("Compacted packed store, reclaimed " + (reclaimed / 1024) + " KiB");
+        }
+
+        Report report = new Report(mode, dryRun, players.get(), valid.get(), legacy.get(), outdated.get(), corrupt.get(),
+                restored.get(), migrated.get(), skippedOnline.get(), backupsPruned.get(),
+                bytesScanned.get(), bytesReclaimed.get(), System.currentTimeMillis() - start);
+        progress.accept("Done: " + report);
+        return report;
+    }
+
+    private void reportProgress(Consumer<String> progress, int total) {
+        progress.accept("… " + players.get() + "/" + total + " player(s), "
+                + (bytesScanned.get() / 1024) + " KiB scanned, " + corrupt.get() + " corrupt");
+    }
+
+    /** Players queued on the dispatcher at once: a quarter of one stripe queue. */
+    private static int maxInFlight() {
+        return Math.max(1, EquipmentIOConfig.getQueueCapacity() / 4);
+    }
+
+    /** Lists the directory once (keeping only the distinct player UUIDs) plus every player of the packed store. */
+    private Set<UUID> scanIds() throws IOException {
+        Set<UUID> ids = new HashSet<>();
+        if (target instanceof PackedEquipmentStore packed) ids.addAll(packed.ids());
+        Path dir = files.directory().toPath();
+        if (!Files.isDirectory(dir)) return ids;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*." + FileEquipmentStore.FILE_SUFFIX + "*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                int dot = name.indexOf('.');
+                if (dot <= 0) continue;
+                try {
+                    ids.add(UUID.fromString(name.substring(0, dot)));
+                } catch (IllegalArgumentException ignored) {
+                    // Not a player file
+                }
+            }
+        }
+        return ids;
+    }
+
+    // ────────────────────────────────────────────────
+    // Per player (runs on the player's stripe)
+    // ────────────────────────────────────────────────
+
+    private void processPlayer(UUID id) {
+        players.incrementAndGet();
+        try {
+            if (target instanceof PackedEquipmentStore packed && packed.hasRecords(id)) processPacked(id, packed);
+            else processFiles(id);
+        } finally {
+            // Offline players must not leave cached digests behind (see EquipmentStore#forget)
+            if (!online.test(id)) target.forget(id);
+        }
+    }
+
+    private void processFiles(UUID id) {
+        if (!dryRun && mode != Mode.VERIFY) files.recover(id);
+
+        // 🔹 Main file
+        byte[] main = readQuietly(files.generationFile(id, 0));
+        int mainVersion = main != null ? check(main) : -1;
+        if (main != null) {
+            bytesScanned.addAndGet(main.length);
+            if (mainVersion < 0) corrupt.incrementAndGet();
+            else if (mainVersion == 0) legacy.incrementAndGet();
+            else if (mainVersion < EquipmentCodec.VERSION) outdated.incrementAndGet();
+            else valid.incrementAndGet();
+        }
+
+        // 🔹 Backups: remember the newest valid one, collect redundant ones
+        Set<String> seen = new HashSet<>();
+        if (mainVersion >= 0) seen.add(digest(main));
+        byte[] newestValid = null;
+        int newestValidGeneration = -1;
+        List<File> redundant = new ArrayList<>();
+
+        for (int generation = 1; generation <= MAX_SCANNED_BACKUPS; generation++) {
+            File backup = files.generationFile(id, generation);
+            if (!backup.exists()) continue;
+            if (generation >= files.generations()) {
+                redundant.add(backup);
+                continue;
+            }
+
+            byte[] data = readQuietly(backup);
+            if (data == null) continue;
+            bytesScanned.addAndGet(data.length);
+
+            if (check(data) < 0) {
+                redundant.add(backup);
+                continue;
+            }
+            if (newestValid == null) {
+                newestValid = data;
+                newestValidGeneration = generation;
+            }
+            if (!seen.add(digest(data))) redundant.add(backup);
+        }
+
+        if (mode == Mode.VERIFY) return;
+
+        // 🔹 Restore a missing / broken main file from the newest valid backup
+        if (mainVersion < 0 && newestValid != null) {
+            if (!dryRun) {
+                try {
+                    files.promote(id, newestValidGeneration, newestValid);
+                    EquipmentDataHandler.forgetWritten(id);
+                } catch (IOException e) {
+                    CatocraftMod.LOGGER.error("[EquipmentTool] Failed to restore {} from backup", id, e);
+                    return;
+                }
+            }
+            redundant.remove(files.generationFile(id, newestValidGeneration));
+            main = newestValid;
+            mainVersion = check(main);
+            restored.incrementAndGet();
+            CatocraftMod.LOGGER.info("[EquipmentTool] Restored {} from .bak{}", id, newestValidGeneration);
+        }
+
+        // 🔹 Rewrite legacy / older schema payloads into the active store
+        if (mainVersion >= 0 && mainVersion < EquipmentCodec.VERSION && registries != null) {
+            if (online.test(id)) {
+                skippedOnline.incrementAndGet();
+            } else if (!(target instanceof PackedEquipmentStore packed && packed.hasRecords(id))) {
+                byte[] rewritten = migrate(id, main);
+                if (rewritten != null && target == files) bytesReclaimed.addAndGet(main.length - rewritten.length);
+            }
+        }
+
+        // 🔹 Prune redundant backups (only while a valid main file exists)
+        if (mode == Mode.COMPACT && mainVersion >= 0) {
+            for (File backup : redundant) {
+                long size = backup.length();
+                if (dryRun || backup.delete()) {
+                    backupsPruned.incrementAndGet();
+                    bytesReclaimed.addAndGet(size);
+                }
+            }
+        }
+    }
+
+    /** Players stored in the packed store: checks its generations, restores and migrates there. */
+    private void processPacked(UUID id, PackedEquipmentStore packed) {
+        byte[] main = null;
+        int mainVersion = -1;
+        byte[] newestValid = null;
+        int newestValidGeneration = -1;
+
+        for (int generation = 0; generation < packed.generations(); generation++) {
+            byte[] data;
+            try {
+                data = packed.read(id, generation);
+            } catch (IOException e) {
+                CatocraftMod.LOGGER.warn("[EquipmentTool] Failed to read {}", packed.describe(id, generation), e);
+                continue;
+            }
+            if (data == null) continue;
+            bytesScanned.addAndGet(data.length);
+
+            int version = check(data);
+            if (generation == 0) {
+                main = data;
+                mainVersion = version;
+                if (version < 0) corrupt.incrementAndGet();
+                else if (version == 0) legacy.incrementAndGet();
+                else if (version < EquipmentCodec.VERSION) outdated.incrementAndGet();
+                else valid.incrementAndGet();
+            } else if (version >= 0 && newestValid == null) {
+                newestValid = data;
+                newestValidGeneration = generation;
+            }
+        }
+
+        if (mode == Mode.VERIFY) return;
+
+        // 🔹 Restore a broken current record from the newest valid older one (appended as a new record)
+        if (main != null && mainVersion < 0 && newestValid != null) {
+            if (!dryRun) {
+                try {
+                    packed.promote(id, newestValidGeneration, newestValid);
+                    EquipmentDataHandler.forgetWritten(id);
+                } catch (IOException e) {
+                    CatocraftMod.LOGGER.error("[EquipmentTool] Failed to restore {} from {}", id,
+                            packed.describe(id, newestValidGeneration), e);
+                    return;
+                }
+            }
+            main = newestValid;
+            mainVersion = check(main);
+            restored.incrementAndGet();
+            CatocraftMod.LOGGER.info("[EquipmentTool] Restored {} from an older packed record", id);
+        }
+
+        // 🔹 Rewrite legacy / older schema records (superseded records go with the next compaction)
+        if (mainVersion >= 0 && mainVersion < EquipmentCodec.VERSION && registries != null) {
+            if (online.test(id)) skippedOnline.incrementAndGet();
+            else migrate(id, main);
+        }
+    }
+
+    /** Re-encodes a payload in the current format and writes it to the target store. Returns the new bytes, or null. */
+    private byte[] migrate(UUID id, byte[] payload) {
+        try {
+            byte[] rewritten = EquipmentCodec.encode(EquipmentCodec.decode(payload, registries), registries);
+            if (!dryRun) {
+                target.write(id, rewritten);
+                EquipmentDataHandler.forgetWritten(id);
+            }
+            migrated.incrementAndGet();
+            return rewritten;
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.warn("[EquipmentTool] Could not migrate {}: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Schema version of a valid payload (0 = legacy NBT), or -1 if it is corrupt. */
+    private int check(byte[] data) {
+        try {
+            if (registries != null) {
+                // Full decode also catches items that no longer parse
+                EquipmentCodec.decode(data, registries);
+                return EquipmentCodec.isLegacy(data) ? 0 : EquipmentCodec.verify(data);
+            }
+            return EquipmentCodec.verify(data);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] readQuietly(File file) {
+        try {
+            return file.exists() ? Files.readAllBytes(file.toPath()) : null;
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.warn("[EquipmentTool] Failed to read {}", file.getName(), e);
+            return null;
+        }
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(Arrays.hashCode(data));
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Standalone entry point
+    // ────────────────────────────────────────────────
+
+    /**
+     * Offline use (server stopped, run with the server classpath):
+     * {@code EquipmentDataTool <world dir> [verify|migrate|compact] [--dry-run] [--threads N]}.
+     *
+     * Without a running server there are no registries, so payloads are checked by frame
+     * and checksum only. {@code migrate} is refused (use {@code /equipmentdata migrate});
+     * {@code compact} restores broken files, prunes backups and compacts the packed store,
+     * but leaves schema rewrites to the server.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: EquipmentDataTool <world dir> [verify|migrate|compact] [--dry-run] [--threads N]");
+            System.exit(2);
+        }
+
+        Path world = Paths.get(args[0]);
+        Mode mode = Mode.VERIFY;
+        boolean dryRun = false;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dry-run" -> dryRun = true;
+                case "--threads" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                default -> mode = Mode.valueOf(args[i].toUpperCase(Locale.ROOT));
+            }
+        }
+
+        if (mode == Mode.MIGRATE) {
+            System.err.println("migrate rewrites payloads and needs the registries of a running server; "
+                    + "run /equipmentdata migrate in game, or use verify / compact offline.");
+            System.exit(2);
+        }
+        if (mode == Mode.COMPACT) {
+            System.out.println("Note: offline compact does not rewrite legacy / older-schema payloads; "
+                    + "run /equipmentdata migrate on the server for that.");
+        }
+
+        EquipmentIOConfig.loadConfig();
+        FileEquipmentStore files = new FileEquipmentStore(world.resolve("playerdata").toFile());
+        EquipmentStore target = files;
+        Path packedDir = world.resolve(EquipmentDataHandler.STORE_DIR);
+        if (EquipmentIOConfig.getStore() == EquipmentIOConfig.Store.PACKED && Files.isDirectory(packedDir)) {
+            // Opening verifies every record checksum and truncates torn tails
+            target = new PackedEquipmentStore(packedDir, EquipmentIOConfig.getPackedShards(), files);
+        }
+
+        EquipmentIOExecutor pool = new EquipmentIOExecutor(threads, 256, EquipmentIOConfig.Backpressure.BLOCK, 1000);
+        Report report;
+        try {
+            report = new EquipmentDataTool(files, target, null, mode, dryRun, id -> false)
+                    .run(pool::execute, System.out::println);
+        } finally {
+            pool.shutdown(1, TimeUnit.MINUTES);
+            target.close();
+        }
+        // Non-zero if some player is left without any readable data
+        System.exit(report.corrupt() > report.restored() ? 1 : 0);
+    }
+}
@@ -0,0 +1,254 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🧵 Striped IO pool for equipment persistence.
+ *
+ * Every player UUID maps to one single-threaded worker ("stripe"), so all reads
+ * and writes of a player's files run in submission order while different players
+ * are handled in parallel. Each stripe has a bounded queue; when it is full the
+ * configured {@link EquipmentIOConfig.Backpressure} policy applies.
+ *
+ * A task only ever runs on its stripe's worker, never on the submitting thread, and a
+ * task that does not fit in the queue is parked at the end of the stripe's overflow list,
+ * which the worker moves into the queue oldest first. Everything submitted for a stripe
+ * therefore runs in submission order, whatever the policy. BLOCK only adds a bounded wait
+ * for the parked task to reach the queue: at most {@code blockTimeoutMillis}, and after a
+ * wait ran out no submitter waits on that stripe again until the worker makes progress, so
+ * a stuck disk stalls the caller once instead of on every save. A stripe submitting to
+ * itself never waits, since it would be waiting for itself.
+ */
+final class EquipmentIOExecutor {
+
+    /** Result of {@link #shutdown(long, TimeUnit)}. */
+    record DrainReport(boolean clean, int stripes, long completed, int abandoned, long elapsedMillis) {
+        @Override
+        public String toString() {
+            return (clean ? "drained" : "timed out") + " — stripes=" + stripes + ", completed=" + completed
+                    + ", abandoned=" + abandoned + ", elapsed=" + elapsedMillis + "ms";
+        }
+    }
+
+    private final ThreadPoolExecutor[] stripes;
+    private final Thread[] workers;
+    // Tasks that did not fit in the stripe's queue, in submission order; guarded by the matching lock
+    private final Queue<StripeTask>[] overflow;
+    private final Object[] locks;
+    // A BLOCK wait on the stripe ran out and its worker has not moved anything since; guarded by the lock
+    private final boolean[] stalled;
+    private final EquipmentIOConfig.Backpressure policy;
+    private final long blockTimeoutMillis;
+
+    private final AtomicLong backpressured = new AtomicLong();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    EquipmentIOExecutor(int workers, int queueCapacity, EquipmentIOConfig.Backpressure policy, long blockTimeoutMillis) {
+        this.policy = policy;
+        this.blockTimeoutMillis = Math.max(1, blockTimeoutMillis);
+        this.stripes = new ThreadPoolExecutor[workers];
+        this.workers = new Thread[workers];
+        this.overflow = new Queue[workers];
+        this.locks = new Object[workers];
+        this.stalled = new boolean[workers];
+
+        for (int i = 0; i < workers; i++) {
+            int index = i;
+            String name = workers == 1 ? "EquipmentData-IO-Thread" : "EquipmentData-IO-Thread-" + i;
+            ThreadPoolExecutor stripe = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        this.workers[index] = t;
+                        return t;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            stripe.prestartAllCoreThreads();
+            stripes[i] = stripe;
+            overflow[i] = new ArrayDeque<>();
+            locks[i] = new Object();
+        }
+    }
+
+    /** Creates a pool from the current {@link EquipmentIOConfig}. */
+    static EquipmentIOExecutor fromConfig() {
+        return new EquipmentIOExecutor(
+                EquipmentIOConfig.getWorkerThreads(),
+                EquipmentIOConfig.getQueueCapacity(),
+                EquipmentIOConfig.getBackpressure(),
+                EquipmentIOConfig.getBlockTimeoutMillis());
+    }
+
+    /** Runs the task on the player's stripe, after everything submitted for that player before. */
+    void execute(UUID key, Runnable task) {
+        int index = Math.floorMod(key.hashCode(), stripes.length);
+        ThreadPoolExecutor stripe = stripes[index];
+        StripeTask wrapped = new StripeTask(index, task);
+        Object lock = locks[index];
+
+        synchronized (lock) {
+            if (stripe.isShutdown()) throw new RejectedExecutionException("Equipment IO pool is shut down");
+            // Anything already parked must run first → queue behind it
+            if (overflow[index].isEmpty()) {
+                try {
+                    stripe.execute(wrapped);
+                    return;
+                } catch (RejectedExecutionException full) {
+                    if (stripe.isShutdown()) throw full;
+                }
+            }
+            wrapped.parked = true;
+            overflow[index].add(wrapped);
+
+            if (policy == EquipmentIOConfig.Backpressure.OVERFLOW || stalled[index]
+                    || Thread.currentThread() == workers[index]) {
+                onBackpressure(stripe, "parked in overflow");
+                return;
+            }
+
+            // BLOCK: wait (releasing the lock) until the worker has moved the task into its queue
+            onBackpressure(stripe, "waiting");
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+            try {
+                while (wrapped.parked && !stripe.isShutdown()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        stalled[index] = true;
+                        CatocraftMod.LOGGER.warn("[EquipmentIO] Gave up waiting for queue space on {} after {} ms; "
+                                        + "{} task(s) stay parked until it catches up.",
+                                workers[index].getName(), blockTimeoutMillis, overflow[index].size());
+                        return;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+            } catch (InterruptedException e) {
+                // The task is already parked and will run; only the wait is cut short
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Executor view bound to one player, for {@link CompletableFuture} helpers. */
+    Executor forKey(UUID key) {
+        return task -> execute(key, task);
+    }
+
+    boolean isShutdown() {
+        return stripes[0].isShutdown();
+    }
+
+    /** Tasks waiting in all stripe queues (including overflow). */
+    int queuedTasks() {
+        int total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (locks[i]) {
+                total += stripes[i].getQueue().size() + overflow[i].size();
+            }
+        }
+        return total;
+    }
+
+    /** How often a submission found its stripe's queue full. */
+    long backpressured() {
+        return backpressured.get();
+    }
+
+    /**
+     * Stops accepting work and lets every stripe finish its queue within the timeout.
+     * Whatever is still queued afterwards is abandoned and reported.
+     */
+    DrainReport shutdown(long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (locks[i]) {
+                stripes[i].shutdown();
+                locks[i].notifyAll(); // release BLOCK waiters
+            }
+        }
+
+        boolean clean = true;
+        long deadline = start + unit.toNanos(timeout);
+        try {
+            for (ThreadPoolExecutor stripe : stripes) {
+                long remaining = deadline - System.nanoTime();
+                if (!stripe.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) clean = false;
+            }
+        } catch (InterruptedException e) {
+            clean = false;
+            Thread.currentThread().interrupt();
+        }
+
+        long completed = 0;
+        int abandoned = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            ThreadPoolExecutor stripe = stripes[i];
+            if (!stripe.isTerminated()) abandoned += stripe.shutdownNow().size();
+            synchronized (locks[i]) {
+                abandoned += overflow[i].size();
+                overflow[i].clear();
+            }
+            completed += stripe.getCompletedTaskCount();
+        }
+        return new DrainReport(clean, stripes.length, completed, abandoned,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // ────────────────────────────────────────────────
+    // Backpressure
+    // ────────────────────────────────────────────────
+
+    private void onBackpressure(ThreadPoolExecutor stripe, String action) {
+        long count = backpressured.incrementAndGet();
+        if (count == 1 || count % 100 == 0) {
+            CatocraftMod.LOGGER.warn("[EquipmentIO] Queue full ({} tasks) — {} on {} (x{}).",
+                    stripe.getQueue().size(), action, Thread.currentThread().getName(), count);
+        }
+    }
+
+    /** Worker: moves parked tasks into the queue as far as it has room, oldest first, and wakes their waiters. */
+    private void refill(int index) {
+        synchronized (locks[index]) {
+            Queue<StripeTask> parked = overflow[index];
+            stalled[index] = false;
+            if (parked.isEmpty()) return;
+
+            BlockingQueue<Runnable> queue = stripes[index].getQueue();
+            boolean moved = false;
+            while (!parked.isEmpty() && queue.offer(parked.peek())) {
+                parked.poll().parked = false;
+                moved = true;
+            }
+            if (moved) locks[index].notifyAll();
+        }
+    }
+
+    /** Runs a task and then tops the stripe's queue up from its overflow. */
+    private final class StripeTask implements Runnable {
+        private final int index;
+        private final Runnable task;
+        // In the overflow list rather than the queue; guarded by the stripe's lock
+        boolean parked;
+
+        StripeTask(int index, Runnable task) {
+            this.index = index;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                refill(index);
+            }
+        }
+    }
+}
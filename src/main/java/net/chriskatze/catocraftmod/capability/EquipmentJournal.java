@@ -0,0 +1,348 @@
+package net.chriskatze.catocraftmod.capability;
+
+import io.netty.buffer.Unpooled;
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.VarLong;
+import net.minecraft.world.item.ItemStack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * 📓 Per-player write-ahead journal of equipment slot changes.
+ *
+ * Every slot change gets a sequence number and is appended to {@code <uuid>.wal}
+ * as {@code [int length, int crc32, body]} with body
+ * {@code (varlong seq, utf group key, varint slot, optional stack)}.
+ *
+ * Changes are buffered per player on the server thread (the newest value per slot
+ * wins) and written by one task on the player's IO stripe, so a burst of equips
+ * costs one append and one fsync. Saved snapshots carry the sequence they cover
+ * ({@link EquipmentSnapshot#journalSeq()}); after a snapshot is written the journal
+ * is folded (entries it covers are dropped), and on load entries above the stored
+ * snapshot's sequence are replayed on top of it.
+ */
+final class EquipmentJournal {
+
+    static final String FILE_SUFFIX = ".wal";
+    private static final int RECORD_HEADER = 4 + 4;
+
+    /** One decoded slot change. */
+    record Entry(long seq, String key, int slot, ItemStack stack) {}
+
+    /** Encoded record still present in the player's file. */
+    private record Written(long seq, byte[] record) {}
+
+    /** Changes waiting for the next group commit. */
+    private static final class Batch {
+        final RegistryAccess registries;
+        final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        Batch(RegistryAccess registries) {
+            this.registries = registries;
+        }
+    }
+
+    private final Path directory;
+    private final Supplier<EquipmentIOExecutor> executor;
+
+    // Server thread assigns sequence numbers; seeded from disk when the player loads
+    private final Map<UUID, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private final Map<UUID, Batch> pending = new ConcurrentHashMap<>();
+    // IO-stripe state: records in each file and the highest sequence already folded into a snapshot
+    private final Map<UUID, ArrayDeque<Written>> written = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> folded = new ConcurrentHashMap<>();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    EquipmentJournal(Path directory, Supplier<EquipmentIOExecutor> executor) {
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    private Path fileOf(UUID id) {
+        return directory.resolve(id + FILE_SUFFIX);
+    }
+
+    // ────────────────────────────────────────────────
+    // Server thread
+    // ────────────────────────────────────────────────
+
+    /** Records a slot change; {@code stack} must be a copy the caller no longer touches. */
+    void append(UUID id, String key, int slot, ItemStack stack, RegistryAccess registries) {
+        long seq = sequences.computeIfAbsent(id, k -> new AtomicLong()).incrementAndGet();
+        Entry entry = new Entry(seq, key, slot, stack);
+
+        boolean[] schedule = {false};
+        pending.compute(id, (k, batch) -> {
+            if (batch == null) {
+                batch = new Batch(registries);
+                schedule[0] = true;
+            }
+            // Re-insert so entries stay in sequence order
+            batch.entries.remove(key + "#" + slot);
+            batch.entries.put(key + "#" + slot, entry);
+            return batch;
+        });
+        if (schedule[0]) executor.get().execute(id, () -> commit(id));
+    }
+
+    /** Sequence of the newest change recorded so far; a snapshot taken now covers it. */
+    long currentSeq(UUID id) {
+        AtomicLong seq = sequences.get(id);
+        return seq != null ? seq.get() : 0L;
+    }
+
+    // ────────────────────────────────────────────────
+    // IO stripe
+    // ────────────────────────────────────────────────
+
+    /** Writes the player's pending batch now (barrier before a load). Must run on the player's stripe. */
+    void drainNow(UUID id) {
+        commit(id);
+    }
+
+    /** Group commit: appends all buffered changes of one player with a single fsync. */
+    private void commit(UUID id) {
+        Batch batch = pending.remove(id);
+        if (batch == null || batch.entries.isEmpty()) return;
+
+        long coveredUpTo = folded.getOrDefault(id, 0L);
+        ArrayDeque<Written> records = written.computeIfAbsent(id, k -> new ArrayDeque<>());
+        List<Written> encoded = new ArrayList<>(batch.entries.size());
+        for (Entry entry : batch.entries.values()) {
+            // Already part of a written snapshot → nothing to protect
+            if (entry.seq() <= coveredUpTo) continue;
+            encoded.add(new Written(entry.seq(), encode(entry, batch.registries)));
+        }
+        if (encoded.isEmpty()) return;
+
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(fileOf(id),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                for (Written record : encoded) writeFully(channel, record.record());
+                channel.force(false);
+            }
+            records.addAll(encoded);
+            appended.addAndGet(encoded.size());
+            commits.incrementAndGet();
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.error("[EquipmentJournal] Failed to append {} change(s) for {}", encoded.size(), id, e);
+        }
+    }
+
+    /**
+     * Drops every entry a freshly written snapshot covers. The file is rewritten with the
+     * remaining entries (usually none, in which case it is deleted). Must run on the player's stripe.
+     */
+    void fold(UUID id, long seq) {
+        folded.merge(id, seq, Math::max);
+
+        ArrayDeque<Written> records = written.get(id);
+        if (records == null || records.isEmpty()) return;
+        if (records.peekFirst().seq() > seq) return;
+
+        while (!records.isEmpty() && records.peekFirst().seq() <= seq) records.removeFirst();
+        Path file = fileOf(id);
+        try {
+            if (records.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Path tmp = directory.resolve(id + FILE_SUFFIX + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Written record : records) writeFully(channel, record.record());
+                channel.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Entries the snapshot covers are skipped on replay anyway
+            CatocraftMod.LOGGER.warn("[EquipmentJournal] Failed to fold journal of {}", id, e);
+        }
+    }
+
+    /**
+     * Reads the player's journal (a torn or corrupt tail is ignored) and seeds the
+     * sequence counter above both the file and the stored snapshot. Must run on the player's stripe.
+     */
+    List<Entry> load(UUID id, long snapshotSeq, RegistryAccess registries) {
+        ArrayDeque<Written> records = new ArrayDeque<>();
+        List<Entry> entries = new ArrayList<>();
+        Path file = fileOf(id);
+
+        if (Files.exists(file)) {
+            try {
+                ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+                CRC32 crc = new CRC32();
+                while (data.remaining() >= RECORD_HEADER) {
+                    int start = data.position();
+                    int length = data.getInt();
+                    int expectedCrc = data.getInt();
+                    if (length < 0 || length > data.remaining()) break;
+
+                    byte[] body = new byte[length];
+                    data.get(body);
+                    crc.reset();
+                    crc.update(body);
+                    if ((int) crc.getValue() != expectedCrc) break;
+
+                    Entry entry = decode(body, registries);
+                    if (entry == null) break;
+                    entries.add(entry);
+                    records.add(new Written(entry.seq(), Arrays.copyOfRange(data.array(), start, data.position())));
+                }
+                int valid = records.stream().mapToInt(w -> w.record().length).sum();
+                if (valid < data.capacity()) {
+                    // Cut the torn tail so later appends stay reachable
+                    CatocraftMod.LOGGER.warn("[EquipmentJournal] Truncating {} torn byte(s) at the end of {}",
+                            data.capacity() - valid, file.getFileName());
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                    }
+                }
+            } catch (IOException e) {
+                CatocraftMod.LOGGER.error("[EquipmentJournal] Failed to read {}", file.getFileName(), e);
+            }
+        }
+
+        long last = snapshotSeq;
+        for (Entry entry : entries) last = Math.max(last, entry.seq());
+        sequences.computeIfAbsent(id, k -> new AtomicLong()).accumulateAndGet(last, Math::max);
+        written.put(id, records);
+        folded.put(id, snapshotSeq);
+        return entries;
+    }
+
+    /** Releases a logged-out player's state once everything queued before it on the stripe has run. */
+    void release(UUID id) {
+        executor.get().execute(id, () -> {
+            commit(id);
+            if (pending.containsKey(id)) return; // changed again meanwhile
+            written.remove(id);
+            folded.remove(id);
+            sequences.remove(id);
+        });
+    }
+
+    String stats() {
+        return "journalAppended=" + appended.get() + ", journalCommits=" + commits.get();
+    }
+
+    // ────────────────────────────────────────────────
+    // Replay
+    // ────────────────────────────────────────────────
+
+    /** Applies all entries newer than the snapshot, in sequence order. Returns the snapshot itself if none are. */
+    static EquipmentSnapshot replay(EquipmentSnapshot snapshot, List<Entry> entries) {
+        List<Entry> newer = new ArrayList<>();
+        for (Entry entry : entries) if (entry.seq() > snapshot.journalSeq()) newer.add(entry);
+        if (newer.isEmpty()) return snapshot;
+        newer.sort(Comparator.comparingLong(Entry::seq));
+
+        // key → (size, slot → stack), keeping the snapshot's group order
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        Map<String, TreeMap<Integer, ItemStack>> contents = new HashMap<>();
+        for (EquipmentSnapshot.Group group : snapshot.groups()) {
+            sizes.put(group.key(), group.size());
+            TreeMap<Integer, ItemStack> slots = new TreeMap<>();
+            for (int i = 0; i < group.slots().length; i++) slots.put(group.slots()[i], group.stacks()[i]);
+            contents.put(group.key(), slots);
+        }
+
+        long last = snapshot.journalSeq();
+        for (Entry entry : newer) {
+            Integer size = sizes.get(entry.key());
+            if (size == null) {
+                // Group created after the snapshot: size follows the highest slot seen
+                sizes.put(entry.key(), entry.slot() + 1);
+                contents.put(entry.key(), new TreeMap<>());
+            } else if (entry.slot() >= size) {
+                sizes.put(entry.key(), entry.slot() + 1);
+            }
+
+            TreeMap<Integer, ItemStack> slots = contents.get(entry.key());
+            if (entry.stack().isEmpty()) slots.remove(entry.slot());
+            else slots.put(entry.slot(), entry.stack());
+            last = entry.seq();
+        }
+
+        List<EquipmentSnapshot.Group> groups = new ArrayList<>(sizes.size());
+        sizes.forEach((key, size) -> {
+            TreeMap<Integer, ItemStack> slots = contents.get(key);
+            int[] slotArray = new int[slots.size()];
+            ItemStack[] stackArray = new ItemStack[slots.size()];
+            int n = 0;
+            for (Map.Entry<Integer, ItemStack> e : slots.entrySet()) {
+                slotArray[n] = e.getKey();
+                stackArray[n] = e.getValue();
+                n++;
+            }
+            groups.add(new EquipmentSnapshot.Group(key, size, slotArray, stackArray));
+        });
+        return new EquipmentSnapshot(List.copyOf(groups), last);
+    }
+
+    // ────────────────────────────────────────────────
+    // Record encoding
+    // ────────────────────────────────────────────────
+
+    private static byte[] encode(Entry entry, RegistryAccess registries) {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(64), registries);
+        try {
+            VarLong.write(buf, entry.seq());
+            buf.writeUtf(entry.key());
+            VarInt.write(buf, entry.slot());
+            ItemStack.OPTIONAL_STREAM_CODEC.encode(buf, entry.stack());
+
+            byte[] body = new byte[buf.readableBytes()];
+            buf.readBytes(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+
+            return ByteBuffer.allocate(RECORD_HEADER + body.length)
+                    .putInt(body.length)
+                    .putInt((int) crc.getValue())
+                    .put(body)
+                    .array();
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static Entry decode(byte[] body, RegistryAccess registries) {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.wrappedBuffer(body), registries);
+        try {
+            long seq = VarLong.read(buf);
+            String key = buf.readUtf();
+            int slot = VarInt.read(buf);
+            ItemStack stack = ItemStack.OPTIONAL_STREAM_CODEC.decode(buf);
+            return slot >= 0 ? new Entry(seq, key, slot, stack) : null;
+        } catch (RuntimeException e) {
+            CatocraftMod.LOGGER.warn("[EquipmentJournal] Skipping malformed record: {}", e.getMessage());
+            return null;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -0,0 +1,177 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.chriskatze.catocraftmod.item.EquippableItemBase;
+import net.chriskatze.catocraftmod.item.ModifierTable;
+import net.chriskatze.catocraftmod.menu.layout.EquipmentGroup;
+import net.minecraft.core.Holder;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.item.ItemStack;
+import net.neoforged.neoforge.items.ItemStackHandler;
+
+import java.util.*;
+
+/**
+ * 🧮 Incremental attribute modifier engine for {@link PlayerEquipmentCapability}.
+ *
+ * Remembers the compiled {@link ModifierTable}s every {@link EquipmentGroup} (by index)
+ * contributes — one per occupied slot — and the aggregated values currently applied
+ * to the owner. A reconcile sums all tables into primitive arrays, one cell per
+ * (attribute, operation), and only touches attribute instances whose total changed.
+ *
+ * Each cell is applied as a single modifier with a stable id
+ * (see {@link ModifierTable#idOf(int)}), so equal items in several slots stack.
+ *
+ * The first reconcile after {@link #reset()} sweeps every leftover
+ * {@code catocraftmod} modifier from the owner (same as the old full rebuild),
+ * which covers fresh entities after respawn/clone.
+ */
+final class EquipmentModifierEngine {
+
+    private static final ModifierTable[] NONE = new ModifierTable[0];
+
+    // Tables per group index (one per non-empty slot)
+    private ModifierTable[][] contributions = new ModifierTable[0][];
+
+    // Aggregated values currently applied to the owner, per cell
+    private double[] appliedValues = new double[0];
+    private final BitSet appliedCells = new BitSet();
+
+    // Scratch accumulator, reused between reconciles
+    private double[] desiredValues = new double[0];
+    private final BitSet desiredCells = new BitSet();
+
+    private boolean sweepPending = true;
+
+    /** Forgets all applied state; the next reconcile starts with a full namespace sweep. */
+    void reset() {
+        Arrays.fill(contributions, null);
+        appliedCells.clear();
+        sweepPending = true;
+    }
+
+    /**
+     * Resizes the contribution table to the current group count and forgets all
+     * contributions (indices may have moved). Applied values are kept, so the
+     * next reconcile still only touches the difference.
+     */
+    void resetContributions(int groupCount) {
+        contributions = new ModifierTable[groupCount][];
+    }
+
+    /** Recomputes the contribution of a single group (by {@link EquipmentGroup#getIndex()}) from all of its slots. */
+    void updateGroup(int groupIndex, ItemStackHandler handler) {
+        if (groupIndex < 0) return;
+        if (groupIndex >= contributions.length) contributions = Arrays.copyOf(contributions, groupIndex + 1);
+
+        if (handler == null) {
+            contributions[groupIndex] = NONE;
+            return;
+        }
+
+        ModifierTable[] tables = null;
+        int n = 0;
+        for (int slot = 0; slot < handler.getSlots(); slot++) {
+            ItemStack stack = handler.getStackInSlot(slot);
+            if (stack.isEmpty() || !(stack.getItem() instanceof EquippableItemBase equipItem)) continue;
+
+            ModifierTable table = equipItem.getModifierTable();
+            if (table.isEmpty()) continue;
+            if (tables == null) tables = new ModifierTable[handler.getSlots()];
+            tables[n++] = table;
+        }
+        contributions[groupIndex] = tables == null ? NONE : Arrays.copyOf(tables, n);
+    }
+
+    /**
+     * Applies the difference between the desired and the applied modifier set.
+     *
+     * @return {@code true} if any attribute instance was modified
+     */
+    boolean reconcile(ServerPlayer owner, Set<String> loggedWarnings) {
+        boolean changed = false;
+
+        if (sweepPending) {
+            changed = sweepNamespace(owner);
+            appliedCells.clear();
+            sweepPending = false;
+        }
+
+        // 🔹 1. Sum all contributions per cell
+        int cells = ModifierTable.cellCount();
+        if (desiredValues.length < cells) {
+            desiredValues = new double[cells];
+            appliedValues = Arrays.copyOf(appliedValues, cells);
+        }
+        desiredCells.clear();
+        for (ModifierTable[] tables : contributions) {
+            if (tables == null) continue;
+            for (ModifierTable table : tables) table.accumulate(desiredValues, desiredCells);
+        }
+
+        // 🔹 2. Remove cells that are no longer contributed
+        for (int cell = appliedCells.nextSetBit(0); cell >= 0; cell = appliedCells.nextSetBit(cell + 1)) {
+            if (desiredCells.get(cell)) continue;
+
+            AttributeInstance inst = owner.getAttribute(ModifierTable.attributeOf(cell));
+            if (inst != null) {
+                inst.removeModifier(ModifierTable.idOf(cell));
+                changed = true;
+            }
+            appliedCells.clear(cell);
+        }
+
+        // 🔹 3. Add new cells and update changed totals
+        for (int cell = desiredCells.nextSetBit(0); cell >= 0; cell = desiredCells.nextSetBit(cell + 1)) {
+            double value = desiredValues[cell];
+            if (appliedCells.get(cell) && appliedValues[cell] == value) continue;
+
+            Holder<Attribute> attribute = ModifierTable.attributeOf(cell);
+            ResourceLocation id = ModifierTable.idOf(cell);
+            try {
+                AttributeInstance inst = owner.getAttribute(attribute);
+                if (inst == null) {
+                    if (loggedWarnings.add("missing_attr:" + attribute)) {
+                        CatocraftMod.LOGGER.warn(
+                                "[EquipmentCap] Missing attribute instance for {} when applying {}",
+                                attribute, id
+                        );
+                    }
+                    continue;
+                }
+
+                inst.addOrUpdateTransientModifier(ModifierTable.modifierOf(cell, value));
+                appliedValues[cell] = value;
+                appliedCells.set(cell);
+                changed = true;
+            } catch (Exception e) {
+                if (loggedWarnings.add("modifier_error:" + id)) {
+                    CatocraftMod.LOGGER.error(
+                            "[EquipmentCap] Failed to apply modifier {}: {}", id, e.toString()
+                    );
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /** Removes every modifier of this mod's namespace from the owner's syncable attributes. */
+    private static boolean sweepNamespace(ServerPlayer owner) {
+        boolean changed = false;
+        for (AttributeInstance attr : owner.getAttributes().getSyncableAttributes()) {
+            List<AttributeModifier> stale = attr.getModifiers().stream()
+                    .filter(mod -> mod.id().getNamespace().equals(CatocraftMod.MOD_ID))
+                    .toList();
+            for (AttributeModifier mod : stale) {
+                attr.removeModifier(mod.id());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
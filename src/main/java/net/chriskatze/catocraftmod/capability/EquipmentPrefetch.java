@@ -0,0 +1,84 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ⏩ Bounded cache of equipment loads started during login, before the player entity exists.
+ *
+ * An entry is reserved as soon as the profile (and thus the UUID) is verified and
+ * taken exactly once by {@code LoadFromFile}. Entries expire after the configured TTL,
+ * so connections that never finish logging in cannot pile up, and new reservations
+ * are refused while the cache is full. Any save for the same player invalidates the
+ * entry, since the prefetched data may then be stale.
+ */
+final class EquipmentPrefetch<T> {
+
+    private record Entry<T>(CompletableFuture<T> future, long createdNanos) {}
+
+    private final Map<UUID, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong pendingHits = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** Returns a fresh future to complete, or {@code null} if one is already running or the cache is full. */
+    CompletableFuture<T> reserve(UUID id) {
+        evictExpired();
+        if (entries.size() >= EquipmentIOConfig.getPrefetchMaxEntries()) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        Entry<T> entry = new Entry<>(new CompletableFuture<>(), System.nanoTime());
+        if (entries.putIfAbsent(id, entry) != null) return null;
+        started.incrementAndGet();
+        return entry.future();
+    }
+
+    /** Removes and returns the player's prefetch (done or still running), or {@code null}. */
+    CompletableFuture<T> take(UUID id) {
+        Entry<T> entry = entries.remove(id);
+        if (entry == null) return null;
+        if (isExpired(entry, System.nanoTime())) {
+            expired.incrementAndGet();
+            return null;
+        }
+        (entry.future().isDone() ? hits : pendingHits).incrementAndGet();
+        return entry.future();
+    }
+
+    void invalidate(UUID id) {
+        entries.remove(id);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> {
+            if (!isExpired(e.getValue(), now)) return false;
+            expired.incrementAndGet();
+            return true;
+        });
+    }
+
+    private static boolean isExpired(Entry<?> entry, long now) {
+        return now - entry.createdNanos() > TimeUnit.SECONDS.toNanos(EquipmentIOConfig.getPrefetchTtlSeconds());
+    }
+
+    String stats() {
+        return "prefetchStarted=" + started.get() + ", prefetchHits=" + hits.get() + ", prefetchPendingHits=" + pendingHits.get()
+                + ", prefetchExpired=" + expired.get() + ", prefetchRejected=" + rejected.get();
+    }
+}
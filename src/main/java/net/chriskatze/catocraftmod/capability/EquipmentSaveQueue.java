@@ -0,0 +1,121 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.chriskatze.catocraftmod.capability.store.EquipmentStore;
+import net.minecraft.core.RegistryAccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 🗃️ Coalescing per-player save queue for {@link EquipmentDataHandler}.
+ *
+ * Holds at most one pending snapshot per player UUID. A newer snapshot replaces
+ * the queued one instead of adding another write, so a logout during a world
+ * save (SaveToFile + logout save) only hits the disk once with the latest data.
+ *
+ * Writes run on the player's {@link EquipmentIOExecutor} stripe. {@link #drainNow(UUID)} and
+ * {@link #flushAll(long, TimeUnit)} act as barriers: loads drain the player's
+ * pending write first, and shutdown waits until nothing is queued anymore.
+ */
+final class EquipmentSaveQueue {
+
+    /** One queued write; the snapshot is immutable and never touched by the server thread again. */
+    record PendingSave(UUID id, EquipmentSnapshot snapshot, RegistryAccess registries,
+                       EquipmentStore store, String name, boolean forced) {}
+
+    /** Point-in-time queue metrics. */
+    record Stats(int depth, int maxDepth, long enqueued, long coalesced, long drained) {
+        @Override
+        public String toString() {
+            return "depth=" + depth + ", maxDepth=" + maxDepth + ", enqueued=" + enqueued
+                    + ", coalesced=" + coalesced + ", drained=" + drained;
+        }
+    }
+
+    private final Map<UUID, PendingSave> pending = new ConcurrentHashMap<>();
+    private final Supplier<EquipmentIOExecutor> executor;
+    private final Consumer<PendingSave> writer;
+
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+
+    EquipmentSaveQueue(Supplier<EquipmentIOExecutor> executor, Consumer<PendingSave> writer) {
+        this.executor = executor;
+        this.writer = writer;
+    }
+
+    /**
+     * Queues a snapshot. If one is already pending for the player it is replaced
+     * and no extra task is scheduled — the queued task picks up the newest data.
+     */
+    void enqueue(PendingSave save) {
+        enqueued.incrementAndGet();
+        if (pending.put(save.id(), save) != null) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        maxDepth.accumulateAndGet(pending.size(), Math::max);
+        executor.get().execute(save.id(), () -> drainNow(save.id()));
+    }
+
+    /**
+     * Writes the player's pending snapshot on the calling thread, if there is one.
+     * Must only be called from the player's IO stripe.
+     */
+    void drainNow(UUID id) {
+        PendingSave save = pending.remove(id);
+        if (save == null) return;
+        try {
+            writer.accept(save);
+            drained.incrementAndGet();
+        } catch (Exception e) {
+            CatocraftMod.LOGGER.error("[EquipmentSaveQueue] Write failed for {}", save.name(), e);
+        }
+    }
+
+    /** Barrier: resolves once the player's pending write (if any) has been processed. */
+    CompletableFuture<Void> flush(UUID id) {
+        return CompletableFuture.runAsync(() -> drainNow(id), executor.get().forKey(id));
+    }
+
+    /**
+     * Barrier for shutdown: drains every pending write on its player's stripe and waits
+     * up to the given time. Returns the number of snapshots that were still queued.
+     */
+    int flushAll(long timeout, TimeUnit unit) {
+        List<UUID> ids = new ArrayList<>(pending.keySet());
+        if (ids.isEmpty()) return 0;
+
+        try {
+            EquipmentIOExecutor io = executor.get();
+            CompletableFuture.allOf(ids.stream()
+                    .map(id -> CompletableFuture.runAsync(() -> drainNow(id), io.forKey(id)))
+                    .toArray(CompletableFuture[]::new)).get(timeout, unit);
+        } catch (TimeoutException e) {
+            CatocraftMod.LOGGER.warn("[EquipmentSaveQueue] Flush timed out with {} write(s) still pending.", pending.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            CatocraftMod.LOGGER.error("[EquipmentSaveQueue] Flush failed.", e);
+        }
+        return ids.size();
+    }
+
+    int depth() {
+        return pending.size();
+    }
+
+    Stats stats() {
+        return new Stats(pending.size(), maxDepth.get(), enqueued.get(), coalesced.get(), drained.get());
+    }
+}
@@ -0,0 +1,46 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.minecraft.world.item.ItemStack;
+
+import java.util.List;
+
+/**
+ * 📸 Immutable copy of a player's equipment, independent of the live capability.
+ *
+ * Produced on the server thread by {@link PlayerEquipmentCapability#snapshot()} (stacks
+ * are copies) and by {@link EquipmentCodec} on the IO side, so it can cross threads freely.
+ * Only occupied slots are stored.
+ *
+ * {@code journalSeq} is the last {@link EquipmentJournal} sequence number the content
+ * includes; journal entries above it are replayed on load.
+ */
+public record EquipmentSnapshot(List<Group> groups, long journalSeq) {
+
+    public static final EquipmentSnapshot EMPTY = new EquipmentSnapshot(List.of());
+
+    public EquipmentSnapshot(List<Group> groups) {
+        this(groups, 0L);
+    }
+
+    /**
+     * One equipment group: its key, inventory size, and the occupied slots
+     * ({@code slots[i]} holds {@code stacks[i]}). Callers must not modify the arrays.
+     */
+    public record Group(String key, int size, int[] slots, ItemStack[] stacks) {}
+
+    /** Same content, stamped with the journal position it covers. */
+    public EquipmentSnapshot withJournalSeq(long seq) {
+        return seq == journalSeq ? this : new EquipmentSnapshot(groups, seq);
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /** Number of non-empty stacks over all groups. */
+    public int itemCount() {
+        int count = 0;
+        for (Group group : groups) count += group.slots().length;
+        return count;
+    }
+}
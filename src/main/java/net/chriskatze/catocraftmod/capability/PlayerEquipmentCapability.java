@@ -1,21 +1,23 @@
 package net.chriskatze.catocraftmod.capability;
 
 import net.chriskatze.catocraftmod.CatocraftMod;
-import net.chriskatze.catocraftmod.item.EquippableItemBase;
 import net.chriskatze.catocraftmod.menu.layout.EquipmentGroup;
 import net.chriskatze.catocraftmod.menu.layout.SlotEquipValidator;
 import net.chriskatze.catocraftmod.menu.layout.SlotLayoutDefinition;
 import net.chriskatze.catocraftmod.menu.layout.SlotLayoutLoader;
+import net.chriskatze.catocraftmod.menu.layout.SlotRuleGraph;
 import net.chriskatze.catocraftmod.network.MenuSyncHelper;
+import net.minecraft.ChatFormatting;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
-import net.minecraft.resources.ResourceLocation;
+import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.neoforged.neoforge.items.ItemStackHandler;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ✅ Unified capability for managing all custom player equipment groups.
@@ -36,29 +38,85 @@ import java.util.*;
  * all groups are rebuilt and valid equipped items are restored.
  *
  * 🔸 Note:
- * `EquipmentGroup` is no longer an enum — all collections use
- * `LinkedHashMap` / `LinkedHashSet` to preserve order and support
- * runtime addition/removal of groups.
+ * `EquipmentGroup` is no longer an enum, but every registered group carries a
+ * dense {@link EquipmentGroup#getIndex() index}. Inventories, dirty bits and the
+ * equipped mask are flat arrays / bitsets addressed by that index.
  */
 public class PlayerEquipmentCapability {
 
-    // Dynamic registry-friendly structure; keeps insertion order for UI consistency.
-    private final Map<EquipmentGroup, ItemStackHandler> groupInventories = new LinkedHashMap<>();
+    // Index-based storage: slot i belongs to EquipmentGroup.byIndex(i).
+    // groups[i] remembers the registry instance the handler was built for (registry resets recreate groups).
+    private EquipmentGroup[] groups = new EquipmentGroup[0];
+    private GroupInventory[] inventories = new GroupInventory[0];
+    private int activeGroups = 0;
+
+    // Groups with at least one non-empty slot, by group index
+    private final BitSet equippedMask = new BitSet();
+
+    // Ordered view for callers that still iterate by group; rebuilt only when the structure changes
+    private Map<EquipmentGroup, ItemStackHandler> groupView;
+
+    // SlotLayoutLoader epoch the group arrays were last reconciled against (-1 = never / stale)
+    private int layoutEpoch = -1;
+
+    // Serialization cache: per-group "Items" tags stay valid until that group's handler changes
+    private CompoundTag[] itemTags = new CompoundTag[0];
+    private final BitSet staleItemTags = new BitSet();
+    private CompoundTag cachedRoot;
+    private EquipmentSnapshot cachedSnapshot;
+    // Changes whenever the content or structure changes; unique across instances (see getContentVersion)
+    private static final AtomicLong CONTENT_VERSIONS = new AtomicLong();
+    private long contentVersion = CONTENT_VERSIONS.incrementAndGet();
+    private net.minecraft.core.HolderLookup.Provider cachedLookup;
 
     private boolean dirty = false;
     private boolean suppressSync = false;
     private ServerPlayer owner;
     private int pendingHealthFixTicks = 0;
-    private int ticksSinceLastSync = 0;
-    private static final int SYNC_INTERVAL_TICKS = 20; // every 1s if dirty
-    private boolean suppressAttributeReapply = false;
 
-    public void setOwner(ServerPlayer player) { this.owner = player; }
+    // Transaction state (see beginBatch/commit): per-slot side effects are deferred while depth > 0
+    private int batchDepth = 0;
+    private boolean batchAttributesDirty = false;
+    private final BitSet batchEmptiedGroups = new BitSet();
+    private int attributeReconciles = 0;
+
+    // Slots changed since the last delta sync; a full sync is only needed after load / layout changes
+    private BitSet[] dirtySlots = new BitSet[0];
+    private final BitSet dirtyGroups = new BitSet();
+    private boolean fullSyncPending = false;
+
+    // Set while the saved state is still being read off-thread (see EquipmentDataHandler#asyncLoad)
+    private boolean loading = false;
+
+    // Tracks per-group modifier contributions so attribute updates only apply the difference
+    private final EquipmentModifierEngine modifierEngine = new EquipmentModifierEngine();
+
+    public void setOwner(ServerPlayer player) {
+        // A new entity (respawn, clone) starts without our modifiers → rebuild from scratch
+        if (player != this.owner) modifierEngine.reset();
+        this.owner = player;
+    }
     public ServerPlayer getOwner() { return owner; }
 
     // NOTE: EquipmentGroup is now a dynamic registry class, not an enum.
-    // Therefore, we use LinkedHashMap/LinkedHashSet instead of EnumMap/EnumSet.
-    // This allows hot-reloading and data-driven expansion of equipment groups.
+    // Its dense index plays the role of ordinal(), so arrays / BitSets replace EnumMap / EnumSet.
+    // Indices are reassigned on reload; handlers are carried over by key (see initializeGroupsIfMissing).
+
+    /** Item handler bound to a group; the group reference is swapped when the registry is rebuilt. */
+    private final class GroupInventory extends ItemStackHandler {
+        private EquipmentGroup group;
+
+        private GroupInventory(EquipmentGroup group, int size) {
+            super(size);
+            this.group = group;
+        }
+
+        @Override
+        protected void onContentsChanged(int slot) {
+            super.onContentsChanged(slot);
+            handleContentsChanged(group, slot);
+        }
+    }
 
     // ────────────────────────────────────────────────
     // Global log cache for attribute/modifier warnings
@@ -70,32 +128,54 @@ public class PlayerEquipmentCapability {
     // Initialization
     // ────────────────────────────────────────────────
 
+    /**
+     * Hot-path accessor guard: reconciles the groups only if the layout epoch moved
+     * since the last reconcile. Otherwise this is a single field comparison.
+     */
+    public void ensureLayoutCurrent() {
+        if (layoutEpoch != SlotLayoutLoader.getEpoch()) initializeGroupsIfMissing();
+    }
+
     /**
      * Ensures all currently registered equipment groups are initialized,
      * and removes any groups that no longer exist (from deleted or renamed layouts).
      * Now includes per-player context in logs for better debugging.
+     * Prefer {@link #ensureLayoutCurrent()} on access paths.
      */
     public void initializeGroupsIfMissing() {
+        layoutEpoch = SlotLayoutLoader.getEpoch();
+        int count = EquipmentGroup.count();
         int created = 0;
         int removed = 0;
         int totalSlots = 0;
 
-        Set<EquipmentGroup> validGroups = new HashSet<>(EquipmentGroup.all());
+        EquipmentGroup[] newGroups = new EquipmentGroup[count];
+        GroupInventory[] newInventories = new GroupInventory[count];
+        boolean structureChanged = groups.length != count;
 
-        // 🗑️ Step 1 — Remove orphaned groups (no longer in registry)
-        Iterator<Map.Entry<EquipmentGroup, ItemStackHandler>> it = groupInventories.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<EquipmentGroup, ItemStackHandler> entry = it.next();
-            if (!validGroups.contains(entry.getKey())) {
-                it.remove();
+        // 🔁 Step 1 — Carry over existing handlers by key, drop orphaned groups (no longer in registry)
+        for (int i = 0; i < inventories.length; i++) {
+            GroupInventory inv = inventories[i];
+            if (inv == null) continue;
+
+            EquipmentGroup current = EquipmentGroup.fromKey(inv.group.getKey());
+            if (current == null) {
                 removed++;
+                structureChanged = true;
+                continue;
             }
+
+            if (current != inv.group || current.getIndex() != i) structureChanged = true;
+            inv.group = current;
+            newGroups[current.getIndex()] = current;
+            newInventories[current.getIndex()] = inv;
         }
 
         // 🆕 Step 2 — Add missing groups
-        for (EquipmentGroup group : validGroups) {
-            if (groupInventories.containsKey(group)) continue;
+        for (int i = 0; i < count; i++) {
+            if (newInventories[i] != null) continue;
 
+            EquipmentGroup group = EquipmentGroup.byIndex(i);
             SlotLayoutDefinition def = SlotLayoutLoader.getDefinition(group.getGroupId());
             int slotCount = 1;
 
@@ -112,53 +192,117 @@ public class PlayerEquipmentCapability {
                 }
             }
 
-            ItemStackHandler handler = new ItemStackHandler(slotCount) {
-                @Override
-                protected void onContentsChanged(int slot) {
-                    super.onContentsChanged(slot);
-                    handleContentsChanged(group);
-                }
-            };
-
-            groupInventories.put(group, handler);
+            newGroups[i] = group;
+            newInventories[i] = new GroupInventory(group, slotCount);
+            structureChanged = true;
             created++;
             totalSlots += slotCount;
         }
 
+        if (structureChanged) {
+            groups = newGroups;
+            inventories = newInventories;
+            onStructureChanged();
+            fullSyncPending = true;
+        }
+
+        if (!structureChanged) return;
+
         // 👤 Optional: add player context to log if we have an owner
         String playerName = (owner != null)
                 ? owner.getGameProfile().getName()
                 : "<no-owner>";
 
-        CatocraftMod.LOGGER.info(
+        CatocraftMod.LOGGER.debug(
                 "[EquipmentCap] Sync complete for {} → {} new groups, {} removed, {} total active ({} slots).",
                 playerName,
                 created,
                 removed,
-                groupInventories.size(),
+                activeGroups,
                 totalSlots
         );
     }
 
+    /**
+     * Rebuilds everything derived from the group arrays after handlers were
+     * added, removed or moved to another index.
+     */
+    private void onStructureChanged() {
+        int count = groups.length;
+        dirtySlots = new BitSet[count];
+        dirtyGroups.clear();
+        equippedMask.clear();
+        groupView = null;
+        activeGroups = 0;
+        itemTags = new CompoundTag[count];
+        staleItemTags.clear();
+        cachedRoot = null;
+        cachedSnapshot = null;
+        contentVersion = CONTENT_VERSIONS.incrementAndGet();
+
+        modifierEngine.resetContributions(count);
+        for (int i = 0; i < count; i++) {
+            GroupInventory inv = inventories[i];
+            if (inv == null) continue;
+            activeGroups++;
+            updateEquipped(i);
+            modifierEngine.updateGroup(i, inv);
+        }
+    }
+
+    /** Refreshes the equipped bit of a single group. */
+    private void updateEquipped(int index) {
+        GroupInventory inv = inventories[index];
+        boolean equipped = false;
+        if (inv != null) {
+            for (int i = 0; i < inv.getSlots(); i++) {
+                if (!inv.getStackInSlot(i).isEmpty()) {
+                    equipped = true;
+                    break;
+                }
+            }
+        }
+        equippedMask.set(index, equipped);
+    }
+
     // ────────────────────────────────────────────────
     // Accessors
     // ────────────────────────────────────────────────
 
+    /**
+     * Returns the handler of the given group, or {@code null} if this capability
+     * has not (yet) been built for that registry instance.
+     */
+    public ItemStackHandler getHandler(EquipmentGroup group) {
+        if (group == null) return null;
+        int index = group.getIndex();
+        return index >= 0 && index < groups.length && groups[index] == group ? inventories[index] : null;
+    }
+
+    /** Returns the handler stored at the given group index, or {@code null}. */
+    public ItemStackHandler getHandler(int index) {
+        return index >= 0 && index < inventories.length ? inventories[index] : null;
+    }
+
     public ItemStack getItem(EquipmentGroup group) {
-        var inv = groupInventories.get(group);
+        var inv = getHandler(group);
         return inv != null ? inv.getStackInSlot(0) : ItemStack.EMPTY;
     }
 
+    /** True if the group at the given index holds at least one item. Allocation-free. */
+    public boolean isEquipped(int index) {
+        return equippedMask.get(index);
+    }
+
+    /** Live mask of equipped group indices. Callers must not modify it. */
+    public BitSet getEquippedMask() {
+        return equippedMask;
+    }
+
     public Set<EquipmentGroup> getEquippedGroups() {
         Set<EquipmentGroup> equipped = new LinkedHashSet<>();
-        for (var entry : groupInventories.entrySet()) {
-            var handler = entry.getValue();
-            for (int i = 0; i < handler.getSlots(); i++) {
-                if (!handler.getStackInSlot(i).isEmpty()) {
-                    equipped.add(entry.getKey());
-                    break;
-                }
-            }
+        for (int i = equippedMask.nextSetBit(0); i >= 0; i = equippedMask.nextSetBit(i + 1)) {
+            if (i < groups.length && groups[i] != null) equipped.add(groups[i]);
         }
         return equipped;
     }
@@ -168,26 +312,24 @@ public class PlayerEquipmentCapability {
     // ────────────────────────────────────────────────
 
     public void setItem(EquipmentGroup group, ItemStack stack) {
-        var inv = groupInventories.get(group);
+        var inv = getHandler(group);
         if (inv == null || owner == null) return;
 
-        Set<ResourceLocation> equippedGroupIds = new HashSet<>();
-        getEquippedGroups().forEach(g -> equippedGroupIds.add(g.getGroupId()));
-
-        ResourceLocation groupId = group.getGroupId();
-
-        // ───────────────────────────────────────────────
-        // Unequip validation
-        // ───────────────────────────────────────────────
-        if (stack.isEmpty()) {
-            // Instead of blocking, automatically remove dependents
-            autoUnequipDependents(group);
+        // Equips before the saved state is applied would be overwritten by it → reject
+        if (loading) {
+            if (!stack.isEmpty()) owner.getInventory().placeItemBackInInventory(stack);
+            notifyLoading(owner);
+            return;
         }
 
+        SlotRuleGraph rules = SlotRuleGraph.get();
+        int ruleIndex = rules.indexOf(group);
+
         // ───────────────────────────────────────────────
         // Equip validation
+        // (unequips never block: commit() drops the dependents of an emptied group)
         // ───────────────────────────────────────────────
-        boolean canEquip = SlotEquipValidator.canEquip(owner, group, getEquippedGroups());
+        boolean canEquip = SlotEquipValidator.canEquip(owner, group, equippedMask);
         if (!canEquip) {
             owner.getInventory().placeItemBackInInventory(stack);
             return;
@@ -200,102 +342,267 @@ public class PlayerEquipmentCapability {
         }
 
         // ───────────────────────────────────────────────
-        // Core apply (with suppression guard)
+        // Core apply (one transaction incl. linked groups)
         // ───────────────────────────────────────────────
-        suppressAttributeReapply = true;
-        inv.setStackInSlot(0, stack);
+        beginBatch();
+        try {
+            inv.setStackInSlot(0, stack);
 
         // ───────────────────────────────────────────────
         // Linked slot mirroring
         // ───────────────────────────────────────────────
-        SlotLayoutDefinition def = SlotLayoutLoader.getDefinition(groupId);
-        if (def != null && !def.linked_with().isEmpty()) {
-            for (String linkedKey : def.linked_with()) {
-                EquipmentGroup linkedGroup = EquipmentGroup.fromKey(linkedKey);
-                if (linkedGroup == null || linkedGroup == group) continue;
-
-                var linkedInv = groupInventories.get(linkedGroup);
+            for (int linkedIndex : rules.linkedOf(ruleIndex)) {
+                EquipmentGroup linkedGroup = rules.group(linkedIndex);
+                var linkedInv = getHandler(linkedGroup);
                 if (linkedInv == null || linkedInv.getSlots() == 0) continue;
 
                 ItemStack linkedStack = stack.isEmpty() ? ItemStack.EMPTY : stack.copy();
                 linkedInv.setStackInSlot(0, linkedStack);
 
                 CatocraftMod.LOGGER.debug("[EquipmentCap] Synced linked group '{}' with '{}'.",
-                        linkedKey, group.getKey());
+                        linkedGroup.getKey(), group.getKey());
             }
+        } finally {
+            // Modifiers, health and sync once for the whole change
+            commit();
         }
-        suppressAttributeReapply = false;
+    }
 
-        // Reapply modifiers after any linked update
-        if (owner != null && !owner.level().isClientSide && !suppressAttributeReapply) {
-            applyAllAttributes();
-        }
+    // ────────────────────────────────────────────────
+    // Transactions
+    // ────────────────────────────────────────────────
+
+    /**
+     * Opens a (nestable) transaction. Until the matching {@link #commit()}, slot
+     * changes only record dirty state; attribute reconcile, health normalization,
+     * dependent validation and client sync run once when the outermost batch commits.
+     */
+    public void beginBatch() {
+        batchDepth++;
     }
 
     /**
-     * Automatically unequips all groups that depend on the given group.
-     * Called when a required base item is unequipped.
+     * Closes a transaction opened by {@link #beginBatch()}. The outermost commit
+     * unequips dependents of groups emptied during the batch, then reconciles
+     * attributes (incl. health) and sends one sync.
      */
-    private void autoUnequipDependents(EquipmentGroup baseGroup) {
-        ResourceLocation baseId = baseGroup.getGroupId();
+    public void commit() {
+        if (batchDepth <= 0) {
+            CatocraftMod.LOGGER.warn("[EquipmentCap] commit() without matching beginBatch()");
+            return;
+        }
+        if (--batchDepth > 0) return;
+        if (owner == null || owner.level().isClientSide) {
+            batchEmptiedGroups.clear();
+            batchAttributesDirty = false;
+            return;
+        }
 
-        for (var entry : groupInventories.entrySet()) {
-            EquipmentGroup otherGroup = entry.getKey();
-            if (otherGroup == baseGroup) continue;
+        // 1️⃣ Validation: groups emptied inside the batch drop their dependents (still batched)
+        if (!batchEmptiedGroups.isEmpty()) {
+            batchDepth++;
+            try {
+                SlotRuleGraph rules = SlotRuleGraph.get();
+                for (int index = batchEmptiedGroups.nextSetBit(0); index >= 0; index = batchEmptiedGroups.nextSetBit(index + 1)) {
+                    if (!equippedMask.get(index)) autoUnequipDependents(rules, index);
+                }
+            } finally {
+                batchDepth--;
+                batchEmptiedGroups.clear();
+            }
+        }
 
-            SlotLayoutDefinition def = SlotLayoutLoader.getDefinition(otherGroup.getGroupId());
-            if (def == null || def.requires().isEmpty()) continue;
+        // 2️⃣ Attributes + health, once
+        if (batchAttributesDirty) {
+            batchAttributesDirty = false;
+            reconcileAttributes();
+        }
 
-            boolean dependsOnBase = def.requires().stream().anyMatch(req ->
-                    baseId.getPath().endsWith("/" + req) || baseId.getPath().equals(req)
-            );
+        // 3️⃣ One sync for everything that changed
+        flushSync();
+    }
 
-            if (dependsOnBase) {
-                var handler = entry.getValue();
-                for (int i = 0; i < handler.getSlots(); i++) {
-                    ItemStack old = handler.getStackInSlot(i);
-                    if (!old.isEmpty()) {
-                        handler.setStackInSlot(i, ItemStack.EMPTY);
-                        owner.getInventory().placeItemBackInInventory(old);
-                        CatocraftMod.LOGGER.debug("[EquipmentCap] Auto-unequipped dependent '{}' because '{}' was removed.",
-                                otherGroup.getKey(), baseGroup.getKey());
-                    }
-                }
+    /** Runs {@code action} inside a single transaction (see {@link #beginBatch()}). */
+    public void batch(Runnable action) {
+        beginBatch();
+        try {
+            action.run();
+        } finally {
+            commit();
+        }
+    }
+
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    /** Attribute reconciles run so far — a transaction should add exactly one. */
+    int attributeReconciles() {
+        return attributeReconciles;
+    }
 
-                // 🔁 Recursively unequip deeper dependencies
-                autoUnequipDependents(otherGroup);
+    /**
+     * Automatically unequips all groups that depend on the given group.
+     * Called when a required base item is unequipped.
+     * Deeper dependencies are covered by the precomputed transitive closure.
+     */
+    private void autoUnequipDependents(SlotRuleGraph rules, int baseIndex) {
+        BitSet dependents = rules.dependentsOf(baseIndex);
+        for (int index = dependents.nextSetBit(0); index >= 0; index = dependents.nextSetBit(index + 1)) {
+            EquipmentGroup otherGroup = rules.group(index);
+            var handler = getHandler(otherGroup);
+            if (handler == null || !equippedMask.get(index)) continue;
+
+            for (int i = 0; i < handler.getSlots(); i++) {
+                ItemStack old = handler.getStackInSlot(i);
+                if (!old.isEmpty()) {
+                    handler.setStackInSlot(i, ItemStack.EMPTY);
+                    owner.getInventory().placeItemBackInInventory(old);
+                    CatocraftMod.LOGGER.debug("[EquipmentCap] Auto-unequipped dependent '{}' because '{}' was removed.",
+                            otherGroup.getKey(), rules.group(baseIndex).getKey());
+                }
             }
         }
     }
 
+    /** Number of groups this capability currently holds handlers for. */
+    public int getGroupCount() {
+        return activeGroups;
+    }
+
+    /**
+     * Read-only, index-ordered view of all group handlers. Cached until the
+     * group structure changes; prefer {@link #getHandler(EquipmentGroup)} for lookups.
+     */
     public Map<EquipmentGroup, ItemStackHandler> getAllGroups() {
-        return groupInventories;
+        if (groupView == null) {
+            Map<EquipmentGroup, ItemStackHandler> view = new LinkedHashMap<>();
+            for (int i = 0; i < inventories.length; i++) {
+                if (inventories[i] != null) view.put(groups[i], inventories[i]);
+            }
+            groupView = Collections.unmodifiableMap(view);
+        }
+        return groupView;
     }
 
     // ────────────────────────────────────────────────
     // Serialization
     // ────────────────────────────────────────────────
 
+    /**
+     * Serializes all groups. Returns a copy the caller owns; the cached tree behind it
+     * is never handed out, so no consumer can corrupt later serializations.
+     */
     public CompoundTag serializeNBT(net.minecraft.core.HolderLookup.Provider lookup) {
+        return serializeCached(lookup).copy();
+    }
+
+    /**
+     * Cached serialization shared by {@link #serializeNBT}; must not leave this class.
+     * Only groups whose handler changed since the last call are re-serialized.
+     */
+    private CompoundTag serializeCached(net.minecraft.core.HolderLookup.Provider lookup) {
+        if (cachedRoot != null && cachedLookup == lookup) return cachedRoot;
+
+        // Different registry access → none of the cached item tags can be trusted
+        if (cachedLookup != lookup) {
+            Arrays.fill(itemTags, null);
+            cachedLookup = lookup;
+        }
+
         CompoundTag root = new CompoundTag();
         ListTag groupsList = new ListTag();
 
-        for (var entry : groupInventories.entrySet()) {
-            EquipmentGroup group = entry.getKey();
-            ItemStackHandler inv = entry.getValue();
+        for (int i = 0; i < inventories.length; i++) {
+            EquipmentGroup group = groups[i];
+            ItemStackHandler inv = inventories[i];
+            if (inv == null) continue;
+
+            if (itemTags[i] == null || staleItemTags.get(i)) {
+                itemTags[i] = inv.serializeNBT(lookup);
+            }
 
             CompoundTag groupTag = new CompoundTag();
             groupTag.putString("GroupKey", group.getKey());
-            groupTag.put("Items", inv.serializeNBT(lookup));
+            groupTag.put("Items", itemTags[i]);
             groupsList.add(groupTag);
         }
+        staleItemTags.clear();
 
         root.put("Groups", groupsList);
+        cachedRoot = root;
         return root;
     }
 
+    /**
+     * Immutable copy of all groups for the save pipeline (see {@link EquipmentCodec}).
+     * Cached until the next content or structure change; callers must not modify the stacks.
+     */
+    public EquipmentSnapshot snapshot() {
+        if (cachedSnapshot != null) return cachedSnapshot;
+
+        List<EquipmentSnapshot.Group> result = new ArrayList<>(activeGroups);
+        for (int i = 0; i < inventories.length; i++) {
+            GroupInventory inv = inventories[i];
+            if (inv == null) continue;
+
+            int[] slots = new int[inv.getSlots()];
+            ItemStack[] stacks = new ItemStack[inv.getSlots()];
+            int n = 0;
+            for (int slot = 0; slot < inv.getSlots(); slot++) {
+                ItemStack stack = inv.getStackInSlot(slot);
+                if (stack.isEmpty()) continue;
+                slots[n] = slot;
+                stacks[n] = stack.copy();
+                n++;
+            }
+            result.add(new EquipmentSnapshot.Group(groups[i].getKey(), inv.getSlots(),
+                    Arrays.copyOf(slots, n), Arrays.copyOf(stacks, n)));
+        }
+        cachedSnapshot = new EquipmentSnapshot(List.copyOf(result));
+        return cachedSnapshot;
+    }
+
+    /**
+     * Replaces the whole content with a decoded snapshot — the counterpart of
+     * {@link #deserializeNBT} for the binary save format. Takes ownership of the stacks.
+     */
+    public void applySnapshot(EquipmentSnapshot snapshot) {
+        groups = new EquipmentGroup[EquipmentGroup.count()];
+        inventories = new GroupInventory[groups.length];
+
+        // Handlers are registered after filling, so setStackInSlot triggers no change tracking
+        for (EquipmentSnapshot.Group entry : snapshot.groups()) {
+            EquipmentGroup group = EquipmentGroup.fromKey(entry.key());
+            if (group == null) continue;
+
+            // Saved size wins, same as ItemStackHandler#deserializeNBT
+            GroupInventory inv = new GroupInventory(group, Math.max(1, entry.size()));
+            for (int i = 0; i < entry.slots().length; i++) {
+                int slot = entry.slots()[i];
+                if (slot >= 0 && slot < inv.getSlots()) inv.setStackInSlot(slot, entry.stacks()[i]);
+            }
+            groups[group.getIndex()] = group;
+            inventories[group.getIndex()] = inv;
+        }
+
+        onStructureChanged();
+        layoutEpoch = -1; // groups missing from the snapshot are added on next access
+
+        CatocraftMod.LOGGER.debug("[EquipmentCap] Applied snapshot with {} equipment groups.", activeGroups);
+    }
+
+    /**
+     * Stamp of the current content: changes on every slot or structure change and never
+     * repeats across capability instances, so equal stamps mean nothing changed. Costs nothing.
+     */
+    public long getContentVersion() {
+        return contentVersion;
+    }
+
     public void deserializeNBT(net.minecraft.core.HolderLookup.Provider lookup, CompoundTag tag) {
-        groupInventories.clear();
+        groups = new EquipmentGroup[EquipmentGroup.count()];
+        inventories = new GroupInventory[groups.length];
 
         var groupsList = tag.getList("Groups", 10);
         for (int i = 0; i < groupsList.size(); i++) {
@@ -309,100 +616,134 @@ public class PlayerEquipmentCapability {
                     ? def.toSlotLayout().cells().size()
                     : 1;
 
-            ItemStackHandler inv = new ItemStackHandler(slotCount) {
-                @Override
-                protected void onContentsChanged(int slot) {
-                    handleContentsChanged(group);
-                }
-            };
-
+            GroupInventory inv = new GroupInventory(group, slotCount);
             inv.deserializeNBT(lookup, groupTag.getCompound("Items"));
-            groupInventories.put(group, inv);
+            groups[group.getIndex()] = group;
+            inventories[group.getIndex()] = inv;
         }
 
-        CatocraftMod.LOGGER.debug("[EquipmentCap] Deserialized {} equipment groups.", groupInventories.size());
+        // Whole content replaced → pending slot deltas are meaningless.
+        // Server-side callers request a full sync explicitly (see requestFullSync()).
+        onStructureChanged();
+        layoutEpoch = -1; // groups missing from the tag are added on next access
+
+        CatocraftMod.LOGGER.debug("[EquipmentCap] Deserialized {} equipment groups.", activeGroups);
     }
 
     // ────────────────────────────────────────────────
     // Sync + Attributes
     // ────────────────────────────────────────────────
 
-    private void handleContentsChanged(EquipmentGroup group) {
+    private void handleContentsChanged(EquipmentGroup group, int slot) {
+        int index = group.getIndex();
+        if (index < 0 || index >= inventories.length || groups[index] != group) return;
+        updateEquipped(index);
+        staleItemTags.set(index);
+        cachedRoot = null;
+        cachedSnapshot = null;
+        contentVersion = CONTENT_VERSIONS.incrementAndGet();
+
         if (suppressSync) return;
         dirty = true;
-        ticksSinceLastSync = 0;
+        if (dirtySlots[index] == null) dirtySlots[index] = new BitSet();
+        dirtySlots[index].set(slot);
+        dirtyGroups.set(index);
 
         if (owner != null && !owner.level().isClientSide) {
-            applyAllAttributes();
+            // Placeholder content while loading is never journaled (see beginLoading)
+            if (!loading) EquipmentDataHandler.journalSlot(owner, group.getKey(), slot, inventories[index].getStackInSlot(slot));
+            modifierEngine.updateGroup(index, inventories[index]);
+            if (batchDepth > 0) {
+                batchAttributesDirty = true;
+                if (!equippedMask.get(index)) batchEmptiedGroups.set(index);
+            } else {
+                reconcileAttributes();
+            }
         }
 
-        CatocraftMod.LOGGER.debug("[EquipmentCap] Group {} changed, marked for sync.", group.getKey());
+        CatocraftMod.LOGGER.debug("[EquipmentCap] Group {} slot {} changed, marked for sync.", group.getKey(), slot);
     }
 
-    public boolean shouldSyncToClient() {
+    /** True if the client is missing slot changes or needs a full resync. */
+    public boolean hasPendingSync() {
         if (suppressSync || owner == null || owner.level().isClientSide) return false;
+        return fullSyncPending || !dirtyGroups.isEmpty();
+    }
+
+    /** True if the client state must be rebuilt from a full sync (login, load, layout reload). */
+    public boolean isFullSyncPending() {
+        return fullSyncPending;
+    }
+
+    /** Requests a full sync on the next tick, e.g. after a layout reload. */
+    public void requestFullSync() {
+        fullSyncPending = true;
+    }
 
-        boolean shouldSync = dirty || ticksSinceLastSync >= SYNC_INTERVAL_TICKS;
-        if (shouldSync) {
-            dirty = false;
-            ticksSinceLastSync = 0;
-        } else {
-            ticksSinceLastSync++;
+    /**
+     * Collects all changed (group, slot, stack) tuples since the last sync and clears them.
+     * Stacks are copied so the payload stays stable while it is encoded.
+     */
+    public List<MenuSyncHelper.SlotDelta> drainSlotDeltas() {
+        List<MenuSyncHelper.SlotDelta> deltas = new ArrayList<>();
+        for (int index = dirtyGroups.nextSetBit(0); index >= 0; index = dirtyGroups.nextSetBit(index + 1)) {
+            BitSet bits = dirtySlots[index];
+            GroupInventory handler = inventories[index];
+            if (bits == null || handler == null) continue;
+            for (int slot = bits.nextSetBit(0); slot >= 0 && slot < handler.getSlots(); slot = bits.nextSetBit(slot + 1)) {
+                deltas.add(new MenuSyncHelper.SlotDelta(handler.group.getKey(), slot, handler.getStackInSlot(slot).copy()));
+            }
+            bits.clear();
         }
+        dirtyGroups.clear();
+        return deltas;
+    }
 
-        return shouldSync;
+    /** Marks the client as fully up to date (called after a full sync was sent). */
+    public void markSynced() {
+        for (int index = dirtyGroups.nextSetBit(0); index >= 0; index = dirtyGroups.nextSetBit(index + 1)) {
+            if (dirtySlots[index] != null) dirtySlots[index].clear();
+        }
+        dirtyGroups.clear();
+        fullSyncPending = false;
     }
 
-    /** Remove old modifiers and reapply from all equipped items safely (persistent log suppression). */
-    public void applyAllAttributes() {
-        if (owner == null || owner.level().isClientSide) return;
+    /**
+     * Client-side: applies a single slot from a delta sync without echoing it back.
+     */
+    public void applyRemoteSlot(EquipmentGroup group, int slot, ItemStack stack) {
+        var handler = getHandler(group);
+        if (handler == null || slot < 0 || slot >= handler.getSlots()) return;
 
+        suppressSync = true;
         try {
-            // 🔹 1. Remove all old modifiers from this mod namespace
-            for (AttributeInstance attr : owner.getAttributes().getSyncableAttributes()) {
-                attr.getModifiers().stream()
-                        .filter(mod -> mod.id().getNamespace().equals(CatocraftMod.MOD_ID))
-                        .toList()
-                        .forEach(mod -> attr.removeModifier(mod.id()));
-            }
-
-            // 🔹 2. Apply active modifiers from equipped items
-            for (var entry : groupInventories.entrySet()) {
-                ItemStack stack = entry.getValue().getStackInSlot(0);
-                if (stack.isEmpty()) continue;
+            handler.setStackInSlot(slot, stack);
+        } finally {
+            suppressSync = false;
+        }
+    }
 
-                if (stack.getItem() instanceof EquippableItemBase equipItem) {
-                    equipItem.getAttributeModifiers().forEach((holder, modifier) -> {
-                        try {
-                            var inst = owner.getAttribute(holder);
-                            if (inst != null && !inst.hasModifier(modifier.id())) {
-                                inst.addTransientModifier(modifier);
-                            } else if (inst == null) {
-                                String key = "missing_attr:" + holder;
-                                if (LOGGED_WARNINGS.add(key)) {
-                                    CatocraftMod.LOGGER.warn(
-                                            "[EquipmentCap] Missing attribute instance for {} when applying {} (item: {})",
-                                            holder, modifier.id(), stack.getItem()
-                                    );
-                                }
-                            }
-                        } catch (Exception e) {
-                            String key = "modifier_error:" + modifier.id();
-                            if (LOGGED_WARNINGS.add(key)) {
-                                CatocraftMod.LOGGER.error(
-                                        "[EquipmentCap] Failed to apply modifier {} from item {}: {}",
-                                        modifier.id(), stack.getItem(), e.toString()
-                                );
-                            }
-                        }
-                    });
-                }
-            }
+    /**
+     * Recomputes the contributions of all equipped items and applies only the
+     * modifiers that differ from what is already on the player (persistent log suppression).
+     */
+    public void applyAllAttributes() {
+        if (owner == null || owner.level().isClientSide) return;
 
-            // 🔹 3. Health + sync
-            normalizeHealth();
-            syncAttributesAndHealth();
+        for (int i = 0; i < inventories.length; i++) {
+            modifierEngine.updateGroup(i, inventories[i]);
+        }
+        reconcileAttributes();
+    }
 
+    /** Applies the pending modifier difference; health + sync only when something actually changed. */
+    private void reconcileAttributes() {
+        attributeReconciles++;
+        try {
+            if (modifierEngine.reconcile(owner, LOGGED_WARNINGS)) {
+                normalizeHealth();
+                syncAttributesAndHealth();
+            }
         } catch (Exception e) {
             if (LOGGED_WARNINGS.add("global_error")) {
                 CatocraftMod.LOGGER.error(
@@ -423,54 +764,63 @@ public class PlayerEquipmentCapability {
         CatocraftMod.LOGGER.info("[EquipmentCap] Reloading slot layouts for {}", owner.getGameProfile().getName());
 
         try {
-            // Backup currently equipped stacks
-            Map<EquipmentGroup, List<ItemStack>> oldStacks = new LinkedHashMap<>();
-            groupInventories.forEach((group, handler) -> {
+            // Backup currently equipped stacks (by key — group instances and indices change on reload)
+            Map<String, List<ItemStack>> oldStacks = new LinkedHashMap<>();
+            for (GroupInventory handler : inventories) {
+                if (handler == null) continue;
                 List<ItemStack> items = new ArrayList<>();
                 for (int i = 0; i < handler.getSlots(); i++) {
                     items.add(handler.getStackInSlot(i).copy());
                 }
-                oldStacks.put(group, items);
-            });
-
-            // Rebuild inventory structure from the new definitions
-            groupInventories.clear();
-            initializeGroupsIfMissing();
-
-            // Try to restore items into the updated slot handlers
-            oldStacks.forEach((group, stacks) -> {
-                var handler = groupInventories.get(group);
-                if (handler == null) return;
-
-                for (int i = 0; i < Math.min(handler.getSlots(), stacks.size()); i++) {
-                    ItemStack stack = stacks.get(i);
-                    if (!stack.isEmpty()) {
-                        try {
-                            // Only restore if still valid for that slot group
-                            boolean validItem = SlotEquipValidator.canEquipItem(owner, group, stack);
-                            if (validItem) {
-                                handler.setStackInSlot(i, stack);
-                            } else {
-                                // Invalid item — put back into player inventory
-                                owner.getInventory().placeItemBackInInventory(stack);
-                                CatocraftMod.LOGGER.warn(
-                                        "[EquipmentCap] Removed invalid item '{}' from group '{}'",
-                                        stack.getItem(), group.getKey()
+                oldStacks.put(handler.group.getKey(), items);
+            }
+
+            // Rebuild + restore as one transaction → attributes and health once at commit
+            beginBatch();
+            batchAttributesDirty = true;
+            try {
+                // Rebuild inventory structure from the new definitions
+                groups = new EquipmentGroup[0];
+                inventories = new GroupInventory[0];
+                onStructureChanged();
+                layoutEpoch = -1;
+                fullSyncPending = true;
+                initializeGroupsIfMissing();
+
+                // Try to restore items into the updated slot handlers
+                oldStacks.forEach((key, stacks) -> {
+                    EquipmentGroup group = EquipmentGroup.fromKey(key);
+                    var handler = getHandler(group);
+                    if (handler == null) return;
+
+                    for (int i = 0; i < Math.min(handler.getSlots(), stacks.size()); i++) {
+                        ItemStack stack = stacks.get(i);
+                        if (!stack.isEmpty()) {
+                            try {
+                                // Only restore if still valid for that slot group
+                                boolean validItem = SlotEquipValidator.canEquipItem(owner, group, stack);
+                                if (validItem) {
+                                    handler.setStackInSlot(i, stack);
+                                } else {
+                                    // Invalid item — put back into player inventory
+                                    owner.getInventory().placeItemBackInInventory(stack);
+                                    CatocraftMod.LOGGER.warn(
+                                            "[EquipmentCap] Removed invalid item '{}' from group '{}'",
+                                            stack.getItem(), group.getKey()
+                                    );
+                                }
+                            } catch (Exception e) {
+                                CatocraftMod.LOGGER.error(
+                                        "[EquipmentCap] Error restoring item {} in group {}: {}",
+                                        stack.getItem(), group.getKey(), e.toString()
                                 );
                             }
-                        } catch (Exception e) {
-                            CatocraftMod.LOGGER.error(
-                                    "[EquipmentCap] Error restoring item {} in group {}: {}",
-                                    stack.getItem(), group.getKey(), e.toString()
-                            );
                         }
                     }
-                }
-            });
-
-            // Reapply attributes after reload
-            applyAllAttributes();
-            normalizeHealth();
+                });
+            } finally {
+                commit();
+            }
 
             CatocraftMod.LOGGER.info("[EquipmentCap] Layout reload complete for {}", owner.getName().getString());
 
@@ -511,12 +861,36 @@ public class PlayerEquipmentCapability {
 
     public void reapplyAttributesOnLogin() {
         if (owner == null || owner.level().isClientSide) return;
-        initializeGroupsIfMissing();
+        ensureLayoutCurrent();
         applyAllAttributes();
         normalizeHealth();
+        // Login, load, respawn and clone all (re)build the client view from scratch
+        fullSyncPending = true;
         CatocraftMod.LOGGER.debug("[EquipmentCap] Reapplied attributes for {}", owner.getName().getString());
     }
 
+    /**
+     * Marks the capability as waiting for its saved state. Until {@link #finishLoading()}
+     * all equip actions are rejected and the data handler skips saves, so the
+     * empty placeholder state can never overwrite the file on disk.
+     */
+    public void beginLoading() {
+        loading = true;
+    }
+
+    public void finishLoading() {
+        loading = false;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /** Action-bar hint shown when an equip is rejected because the load has not finished yet. */
+    public static void notifyLoading(Player player) {
+        player.displayClientMessage(Component.literal("Equipment is still loading…").withStyle(ChatFormatting.YELLOW), true);
+    }
+
     /** Schedule gradual health normalization after login or reload. */
     public void scheduleHealthNormalization(int ticks) {
         this.pendingHealthFixTicks = Math.max(this.pendingHealthFixTicks, ticks);
@@ -544,9 +918,15 @@ public class PlayerEquipmentCapability {
 
     public void tick() {
         tickHealthNormalizationIfNeeded();
-        if (shouldSyncToClient() && owner != null) {
-            MenuSyncHelper.forceSyncToClient(owner);
-        }
+        flushSync();
+    }
+
+    /** Sends whatever the client is missing: full state after structural changes, slot deltas otherwise. */
+    private void flushSync() {
+        if (batchDepth > 0 || !hasPendingSync()) return;
+
+        if (fullSyncPending) MenuSyncHelper.forceSyncToClient(owner);
+        else MenuSyncHelper.syncDeltaToClient(owner);
     }
 
     public boolean isDirty() { return dirty; }
@@ -0,0 +1,56 @@
+package net.chriskatze.catocraftmod.capability.store;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 💾 Storage backend for encoded equipment payloads (see {@code EquipmentCodec}).
+ *
+ * A store keeps several <b>generations</b> per player: generation 0 is the current
+ * payload, higher generations are older copies used as fallback when the current
+ * one is unreadable. All calls for one player arrive in order on that player's IO
+ * stripe; calls for different players may run concurrently.
+ *
+ * Implementations:
+ *  - {@link FileEquipmentStore}   — one file per player plus rolling ".bakN" copies (classic layout)
+ *  - {@link PackedEquipmentStore} — sharded append-only files with an in-memory offset index
+ */
+public interface EquipmentStore {
+
+    /** Short backend name for logs. */
+    String name();
+
+    /** Number of generations {@link #read} may return (including the current one). */
+    int generations();
+
+    /** Reads a generation, or {@code null} if it does not exist. */
+    byte[] read(UUID id, int generation) throws IOException;
+
+    /** Human-readable location of a generation, for logs. */
+    String describe(UUID id, int generation);
+
+    /** Stores a new current payload; the previous one becomes generation 1. */
+    void write(UUID id, byte[] data) throws IOException;
+
+    /** Makes a fallback generation's payload the current one again (after generation 0 failed to decode). */
+    void promote(UUID id, int generation, byte[] data) throws IOException;
+
+    /** True if a current payload exists (cheap: stat or index lookup). */
+    boolean contains(UUID id);
+
+    /** Cleans up leftovers of an interrupted write before the first read. */
+    default void recover(UUID id) {}
+
+    /** Drops any per-player state cached in memory (after the player's final logout save). */
+    default void forget(UUID id) {}
+
+    /**
+     * Periodic background maintenance (backup pruning, compaction). Work that touches a
+     * single player's data is handed to {@code perPlayer} so it runs on that player's IO stripe.
+     */
+    default void sweep(BiConsumer<UUID, Runnable> perPlayer) {}
+
+    /** Flushes and releases resources; the store is not used afterwards. */
+    default void close() {}
+}
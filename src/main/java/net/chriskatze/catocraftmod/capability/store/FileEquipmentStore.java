@@ -0,0 +1,265 @@
+package net.chriskatze.catocraftmod.capability.store;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 📁 Classic layout: {@code <playerdata>/<uuid>.equipment} plus rolling
+ * {@code .bak1 .. .bakN} generations, written via a temp file and an atomic move.
+ *
+ * Rotation never copies bytes (hard link or rename), skips content that is already
+ * backed up, and leaves age-based pruning to a periodic {@link #sweep}.
+ */
+public class FileEquipmentStore implements EquipmentStore {
+
+    public static final String FILE_SUFFIX = "equipment";
+    private static final int BACKUP_COUNT = 5;
+    private static final int BACKUP_MAX_AGE_DAYS = 30;
+
+    private final File directory;
+
+    // Known content digest per generation (null = unknown); lets rotation dedupe without reading files.
+    // Filled by reads/writes of online players and dropped by forget() after their logout save
+    private final Map<UUID, byte[][]> digests = new ConcurrentHashMap<>();
+    private volatile boolean hardLinks = true;
+
+    public FileEquipmentStore(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String name() {
+        return "files";
+    }
+
+    @Override
+    public int generations() {
+        return BACKUP_COUNT + 1;
+    }
+
+    public File directory() {
+        return directory;
+    }
+
+    public File mainFile(UUID id) {
+        return new File(directory, id + "." + FILE_SUFFIX);
+    }
+
+    /** Main file for generation 0, ".bakN" for older ones (the file may not exist). */
+    public File generationFile(UUID id, int generation) {
+        File main = mainFile(id);
+        return generation == 0 ? main : new File(main.getAbsolutePath() + ".bak" + generation);
+    }
+
+    @Override
+    public byte[] read(UUID id, int generation) {
+        File file = generationFile(id, generation);
+        try {
+            if (!Files.exists(file.toPath())) return null;
+            byte[] data = Files.readAllBytes(file.toPath());
+            // Remember what each generation holds so rotation can dedupe without re-reading
+            digestsOf(id)[generation] = digest(data);
+            return data;
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.warn("[EquipmentData] Failed to read {}", file.getName(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public String describe(UUID id, int generation) {
+        return generationFile(id, generation).getName();
+    }
+
+    @Override
+    public boolean contains(UUID id) {
+        return mainFile(id).exists();
+    }
+
+    @Override
+    public void write(UUID id, byte[] data) throws IOException {
+        File mainFile = mainFile(id);
+        File tempFile = new File(mainFile.getAbsolutePath() + ".tmp");
+
+        Files.write(tempFile.toPath(), data);
+        rotateAndBackup(id, mainFile);
+        Files.move(tempFile.toPath(), mainFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        digestsOf(id)[0] = digest(data);
+    }
+
+    @Override
+    public void promote(UUID id, int generation, byte[] data) throws IOException {
+        // Never write in place: the main file may still share its inode with ".bak1"
+        File mainFile = mainFile(id);
+        File tempFile = new File(mainFile.getAbsolutePath() + ".tmp");
+        Files.write(tempFile.toPath(), data);
+        Files.move(tempFile.toPath(), mainFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        digestsOf(id)[0] = digest(data);
+    }
+
+    @Override
+    public void forget(UUID id) {
+        digests.remove(id);
+    }
+
+    @Override
+    public void recover(UUID id) {
+        File mainFile = mainFile(id);
+        File tempFile = new File(mainFile.getAbsolutePath() + ".tmp");
+        if (!tempFile.exists()) return;
+        try {
+            File safeTemp = new File(mainFile.getAbsolutePath() + ".recovered.tmp");
+            Files.move(tempFile.toPath(), safeTemp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(safeTemp.toPath(), mainFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            digestsOf(id)[0] = null;
+            CatocraftMod.LOGGER.warn("[EquipmentData] Recovered leftover save for {}", id);
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.error("[EquipmentData] Failed to recover save for {}", id, e);
+        }
+    }
+
+    // --------------------------------------------------
+    // BACKUPS
+    // --------------------------------------------------
+
+    /**
+     * Turns the current file into ".bak1" without copying bytes: older generations are
+     * renamed one step up and ".bak1" becomes a hard link to the current file, which the
+     * following atomic move then replaces. If the current content is already one of the
+     * backups (known by digest), no new generation is created at all.
+     * Age-based pruning is not done here but by {@link #sweep}.
+     */
+    private void rotateAndBackup(UUID id, File mainFile) {
+        if (!mainFile.exists()) return;
+
+        byte[][] digests = digestsOf(id);
+        if (digests[0] != null) {
+            for (int i = 1; i <= BACKUP_COUNT; i++) {
+                if (digests[i] != null && Arrays.equals(digests[i], digests[0])
+                        && new File(mainFile.getAbsolutePath() + ".bak" + i).exists()) {
+                    CatocraftMod.LOGGER.debug("[EquipmentData] Current content of {} already backed up as .bak{}", mainFile.getName(), i);
+                    return;
+                }
+            }
+        }
+
+        for (int i = BACKUP_COUNT; i > 0; i--) {
+            File older = new File(mainFile.getAbsolutePath() + ".bak" + i);
+            if (!older.exists()) {
+                digests[i] = null;
+                continue;
+            }
+            if (i == BACKUP_COUNT) older.delete();
+            else if (older.renameTo(new File(mainFile.getAbsolutePath() + ".bak" + (i + 1)))) digests[i + 1] = digests[i];
+            digests[i] = null;
+        }
+
+        File backup1 = new File(mainFile.getAbsolutePath() + ".bak1");
+        try {
+            linkOrMove(mainFile.toPath(), backup1.toPath());
+            digests[1] = digests[0];
+            CatocraftMod.LOGGER.debug("[EquipmentData] Created new backup: {}", backup1.getName());
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.error("[EquipmentData] Failed to create backup: {}", backup1.getName(), e);
+        }
+    }
+
+    /** Hard-links {@code target} to {@code source}; falls back to a rename where links are unsupported. */
+    private void linkOrMove(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        if (hardLinks) {
+            try {
+                Files.createLink(target, source);
+                return;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                hardLinks = false;
+                CatocraftMod.LOGGER.info("[EquipmentData] Hard links unavailable in {}, rotating backups by rename.", directory);
+            }
+        }
+        // The main file is gone until the new one is moved in; recover() covers a crash in between
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --------------------------------------------------
+    // PRUNE SWEEP
+    // --------------------------------------------------
+
+    /**
+     * Lists the directory once and prunes backups older than {@value #BACKUP_MAX_AGE_DAYS}
+     * days (always keeping at least one per player). Each player's deletions are handed
+     * to {@code perPlayer} so they run in order with that player's writes.
+     */
+    @Override
+    public void sweep(BiConsumer<UUID, Runnable> perPlayer) {
+        Set<UUID> players = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), "*." + FILE_SUFFIX + ".bak*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                int dot = name.indexOf('.');
+                if (dot <= 0 || name.endsWith(".tmp")) continue;
+                try {
+                    players.add(UUID.fromString(name.substring(0, dot)));
+                } catch (IllegalArgumentException ignored) {
+                    // Not a player file
+                }
+            }
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.warn("[EquipmentData] Backup sweep could not list {}", directory, e);
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(BACKUP_MAX_AGE_DAYS, ChronoUnit.DAYS);
+        for (UUID id : players) perPlayer.accept(id, () -> pruneOldBackups(id, cutoff));
+        CatocraftMod.LOGGER.debug("[EquipmentData] Backup sweep scheduled for {} player(s).", players.size());
+    }
+
+    private void pruneOldBackups(UUID id, Instant cutoff) {
+        File mainFile = mainFile(id);
+        // Only update digests already cached for an online player; the sweep must not grow the map
+        byte[][] digests = this.digests.get(id);
+        int existingBackups = 0;
+        for (int i = 1; i <= BACKUP_COUNT; i++)
+            if (new File(mainFile.getAbsolutePath() + ".bak" + i).exists()) existingBackups++;
+
+        for (int i = BACKUP_COUNT; i >= 1; i--) {
+            File backup = new File(mainFile.getAbsolutePath() + ".bak" + i);
+            if (!backup.exists()) continue;
+            if (Instant.ofEpochMilli(backup.lastModified()).isBefore(cutoff) && existingBackups > 1) {
+                if (backup.delete()) {
+                    if (digests != null) digests[i] = null;
+                    CatocraftMod.LOGGER.info("[EquipmentData] Pruned old backup: {}", backup.getName());
+                }
+                existingBackups--;
+            }
+        }
+    }
+
+    // --------------------------------------------------
+    // DIGESTS
+    // --------------------------------------------------
+
+    private byte[][] digestsOf(UUID id) {
+        return digests.computeIfAbsent(id, k -> new byte[BACKUP_COUNT + 1][]);
+    }
+
+    private static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package net.chriskatze.catocraftmod.capability.store;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 🗄️ Sharded append-only equipment store.
+ *
+ * Players hash into a fixed number of shard files ({@code shard-XX.dat}). Every write
+ * appends a record {@code [magic, uuid, length, crc32, payload]}; an in-memory index
+ * keeps the offsets of the newest {@link #KEEP_GENERATIONS} records per player, which
+ * double as backups. The index is rebuilt on open by scanning each shard with positional
+ * reads (a torn tail from a crash is truncated), and record reads fetch just the record's
+ * region. No file is memory-mapped: a live mapping would block truncating or replacing
+ * the shard on Windows.
+ *
+ * A shard is compacted — live records copied into a fresh file that atomically
+ * replaces the old one — once at least half of it is garbage, and again on close.
+ *
+ * Players without any record yet are served from the classic per-file layout
+ * (read-only), so switching backends migrates data on the next save.
+ */
+public class PackedEquipmentStore implements EquipmentStore {
+
+    private static final int RECORD_MAGIC = 0x43455152; // "CEQR"
+    private static final int RECORD_HEADER = 4 + 8 + 8 + 4 + 4;
+    private static final int KEEP_GENERATIONS = 3;
+
+    private static final long COMPACT_MIN_BYTES = 1L << 20;
+    private static final double COMPACT_GARBAGE_RATIO = 0.5;
+
+    private record Record(long offset, int length) {
+        long total() {
+            return RECORD_HEADER + (long) length;
+        }
+    }
+
+    private static final class Shard {
+        final Path path;
+        FileChannel channel;
+        long size;      // end of the last valid record
+        long liveBytes; // bytes of records still referenced by the index
+        final Map<UUID, ArrayDeque<Record>> index = new HashMap<>(); // newest first
+
+        Shard(Path path) {
+            this.path = path;
+        }
+    }
+
+    private final Path directory;
+    private final Shard[] shards;
+    private final EquipmentStore fallback;
+
+    public PackedEquipmentStore(Path directory, int shardCount, EquipmentStore fallback) throws IOException {
+        this.directory = directory;
+        this.fallback = fallback;
+        this.shards = new Shard[shardCount];
+
+        Files.createDirectories(directory);
+        long records = 0;
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(directory.resolve(String.format(Locale.ROOT, "shard-%02d.dat", i)));
+            open(shard);
+            shards[i] = shard;
+            records += shard.index.size();
+        }
+        CatocraftMod.LOGGER.info("[EquipmentStore] Opened packed store at {} ({} shards, {} players).",
+                directory, shardCount, records);
+    }
+
+    @Override
+    public String name() {
+        return "packed";
+    }
+
+    @Override
+    public int generations() {
+        return Math.max(KEEP_GENERATIONS, fallback.generations());
+    }
+
+    private Shard shardOf(UUID id) {
+        return shards[Math.floorMod(id.hashCode(), shards.length)];
+    }
+
+    // ────────────────────────────────────────────────
+    // Reads
+    // ────────────────────────────────────────────────
+
+    @Override
+    public byte[] read(UUID id, int generation) throws IOException {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            ArrayDeque<Record> records = shard.index.get(id);
+            if (records == null) return fallback.read(id, generation);
+            if (generation >= records.size()) return null;
+
+            Record record = nth(records, generation);
+            byte[] data = new byte[record.length()];
+            readFully(shard, ByteBuffer.wrap(data), record.offset() + RECORD_HEADER);
+            return data;
+        }
+    }
+
+    @Override
+    public String describe(UUID id, int generation) {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            ArrayDeque<Record> records = shard.index.get(id);
+            if (records == null) return fallback.describe(id, generation);
+            if (generation >= records.size()) return shard.path.getFileName() + "#missing";
+            return shard.path.getFileName() + "@" + nth(records, generation).offset();
+        }
+    }
+
+    /** True if the player has records in this store itself (not only in the fallback layout). */
+    public boolean hasRecords(UUID id) {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            return shard.index.containsKey(id);
+        }
+    }
+
+    /** Players with records in this store itself (a copy of the index keys). */
+    public Set<UUID> ids() {
+        Set<UUID> ids = new HashSet<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                ids.addAll(shard.index.keySet());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean contains(UUID id) {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            if (shard.index.containsKey(id)) return true;
+        }
+        return fallback.contains(id);
+    }
+
+    // ────────────────────────────────────────────────
+    // Writes
+    // ────────────────────────────────────────────────
+
+    @Override
+    public void write(UUID id, byte[] data) throws IOException {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER + data.length);
+            buf.putInt(RECORD_MAGIC)
+                    .putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .putInt(data.length)
+                    .putInt((int) crc.getValue())
+                    .put(data)
+                    .flip();
+
+            long offset = shard.size;
+            while (buf.hasRemaining()) offset += shard.channel.write(buf, offset);
+            shard.channel.force(false);
+
+            addRecord(shard, id, new Record(shard.size, data.length));
+            shard.size = offset;
+
+            maybeCompact(shard);
+        }
+    }
+
+    @Override
+    public void promote(UUID id, int generation, byte[] data) throws IOException {
+        write(id, data);
+    }
+
+    @Override
+    public void forget(UUID id) {
+        fallback.forget(id);
+    }
+
+    /** Compacts shards that crossed the garbage threshold and prunes backups of the fallback layout. */
+    @Override
+    public void sweep(BiConsumer<UUID, Runnable> perPlayer) {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                maybeCompact(shard);
+            }
+        }
+        fallback.sweep(perPlayer);
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                try {
+                    maybeCompact(shard);
+                    shard.channel.force(true);
+                    shard.channel.close();
+                } catch (IOException e) {
+                    CatocraftMod.LOGGER.error("[EquipmentStore] Failed to close {}", shard.path.getFileName(), e);
+                }
+            }
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Index
+    // ────────────────────────────────────────────────
+
+    private static void addRecord(Shard shard, UUID id, Record record) {
+        ArrayDeque<Record> records = shard.index.computeIfAbsent(id, k -> new ArrayDeque<>(KEEP_GENERATIONS + 1));
+        records.addFirst(record);
+        shard.liveBytes += record.total();
+        while (records.size() > KEEP_GENERATIONS) shard.liveBytes -= records.removeLast().total();
+    }
+
+    private static Record nth(ArrayDeque<Record> records, int n) {
+        Iterator<Record> it = records.iterator();
+        for (int i = 0; i < n; i++) it.next();
+        return it.next();
+    }
+
+    private static void readFully(Shard shard, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = shard.channel.read(buf, position);
+            if (n < 0) throw new IOException("Unexpected end of " + shard.path.getFileName());
+            position += n;
+        }
+    }
+
+    /** Opens a shard and rebuilds its index from a sequential scan; truncates a torn tail. */
+    private static void open(Shard shard) throws IOException {
+        shard.channel = FileChannel.open(shard.path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        shard.index.clear();
+        shard.liveBytes = 0;
+
+        long fileSize = shard.channel.size();
+        if (fileSize > Integer.MAX_VALUE)
+            throw new IOException("Shard " + shard.path.getFileName() + " exceeds 2 GiB");
+
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        ByteBuffer payload = ByteBuffer.allocate(4096);
+        CRC32 crc = new CRC32();
+        while (pos + RECORD_HEADER <= fileSize) {
+            header.clear();
+            readFully(shard, header, pos);
+            header.flip();
+            if (header.getInt() != RECORD_MAGIC) break;
+            UUID id = new UUID(header.getLong(), header.getLong());
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || pos + RECORD_HEADER + length > fileSize) break;
+
+            if (payload.capacity() < length) payload = ByteBuffer.allocate(length);
+            payload.clear().limit(length);
+            readFully(shard, payload, pos + RECORD_HEADER);
+            payload.flip();
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) break;
+
+            addRecord(shard, id, new Record(pos, length));
+            pos += RECORD_HEADER + (long) length;
+        }
+
+        if (pos < fileSize) {
+            CatocraftMod.LOGGER.warn("[EquipmentStore] Truncating {} torn byte(s) at the end of {}",
+                    fileSize - pos, shard.path.getFileName());
+            shard.channel.truncate(pos);
+        }
+        shard.size = pos;
+    }
+
+    // ────────────────────────────────────────────────
+    // Compaction
+    // ────────────────────────────────────────────────
+
+    private void maybeCompact(Shard shard) {
+        long garbage = shard.size - shard.liveBytes;
+        if (shard.size < COMPACT_MIN_BYTES || garbage < shard.size * COMPACT_GARBAGE_RATIO) return;
+
+        long before = shard.size;
+        try {
+            compact(shard);
+            CatocraftMod.LOGGER.info("[EquipmentStore] Compacted {}: {} → {} bytes",
+                    shard.path.getFileName(), before, shard.size);
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.error("[EquipmentStore] Compaction of {} failed, keeping the old file.",
+                    shard.path.getFileName(), e);
+        }
+    }
+
+    /** Compacts every shard that holds any garbage, regardless of the threshold. Returns bytes reclaimed. */
+    public long compactAll() {
+        long reclaimed = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                long before = shard.size;
+                if (before == shard.liveBytes) continue;
+                try {
+                    compact(shard);
+                    reclaimed += before - shard.size;
+                } catch (IOException e) {
+                    CatocraftMod.LOGGER.error("[EquipmentStore] Compaction of {} failed, keeping the old file.",
+                            shard.path.getFileName(), e);
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    /** Copies all indexed records (oldest first) into a new file and swaps it in. */
+    private void compact(Shard shard) throws IOException {
+        Path tmp = directory.resolve(shard.path.getFileName() + ".compact");
+        Map<UUID, ArrayDeque<Record>> newIndex = new HashMap<>();
+        long pos = 0;
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<UUID, ArrayDeque<Record>> entry : shard.index.entrySet()) {
+                ArrayDeque<Record> moved = new ArrayDeque<>(KEEP_GENERATIONS + 1);
+                Iterator<Record> oldestFirst = entry.getValue().descendingIterator();
+                while (oldestFirst.hasNext()) {
+                    Record record = oldestFirst.next();
+                    ByteBuffer buf = ByteBuffer.allocate((int) record.total());
+                    readFully(shard, buf, record.offset());
+                    buf.flip();
+                    long target = pos;
+                    while (buf.hasRemaining()) target += out.write(buf, target);
+                    moved.addFirst(new Record(pos, record.length()));
+                    pos = target;
+                }
+                newIndex.put(entry.getKey(), moved);
+            }
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        shard.channel.close();
+        try {
+            Files.move(tmp, shard.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            // Reopen either the compacted file or, if the swap failed, the untouched original
+            shard.channel = FileChannel.open(shard.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        shard.index.clear();
+        shard.index.putAll(newIndex);
+        shard.size = pos;
+        shard.liveBytes = pos;
+    }
+}
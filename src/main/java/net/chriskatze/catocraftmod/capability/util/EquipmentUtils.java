@@ -22,7 +22,14 @@ public class EquipmentUtils {
      * Returns -1 if no suitable slot was found.
      */
     public static int findFirstValidSlot(Map<EquipmentGroup, ItemStackHandler> groups, EquipmentGroup group) {
-        var handler = groups.get(group);
+        return findFirstValidSlot(groups.get(group));
+    }
+
+    /**
+     * Same as {@link #findFirstValidSlot(Map, EquipmentGroup)} for an already resolved handler
+     * (see {@code PlayerEquipmentCapability#getHandler}). Returns -1 for {@code null}.
+     */
+    public static int findFirstValidSlot(ItemStackHandler handler) {
         if (handler == null) return -1;
 
         for (int i = 0; i < handler.getSlots(); i++) {
@@ -1,13 +1,11 @@
 package net.chriskatze.catocraftmod.combat;
 
 import net.chriskatze.catocraftmod.CatocraftMod;
-import net.chriskatze.catocraftmod.util.ModAttributes;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.damagesource.DamageSource;
 import net.minecraft.world.damagesource.DamageType;
 import net.minecraft.world.damagesource.DamageTypes;
 import net.minecraft.world.entity.LivingEntity;
-import net.minecraft.world.level.Level;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.event.entity.living.LivingIncomingDamageEvent;
@@ -26,34 +24,23 @@ public class ElementalResistanceHandler {
 
         if (target.level().isClientSide()) return;
 
-        Level level = target.level();
-
-        // Ensure the target actually HAS our attributes before using them
-        if (!target.getAttributes().hasAttribute(ModAttributes.FIRE_RESIST)
-                && !target.getAttributes().hasAttribute(ModAttributes.FROST_RESIST)
-                && !target.getAttributes().hasAttribute(ModAttributes.ARCANE_RESIST)) {
-            // If somehow not registered (e.g., mod conflict), skip safely
-            return;
-        }
+        // Cached per entity; missing attributes read as 0 resist (no change)
 
         // 🔥 FIRE Damage (lava, fireball, or custom fire spell)
-        if (isFireDamage(source) && target.getAttributes().hasAttribute(ModAttributes.FIRE_RESIST)) {
-            double resist = target.getAttributeValue(ModAttributes.FIRE_RESIST);
-            applyResistance(event, resist, "fire");
+        if (isFireDamage(source)) {
+            applyResistance(event, ElementalStats.resist(target, Element.FIRE), "fire");
             return;
         }
 
         // ❄️ FROST Damage (freeze, custom frost spell)
-        if (isFrostDamage(source) && target.getAttributes().hasAttribute(ModAttributes.FROST_RESIST)) {
-            double resist = target.getAttributeValue(ModAttributes.FROST_RESIST);
-            applyResistance(event, resist, "frost");
+        if (isFrostDamage(source)) {
+            applyResistance(event, ElementalStats.resist(target, Element.FROST), "frost");
             return;
         }
 
         // 🪄 ARCANE Damage (magic, indirect magic, or custom arcane spell)
-        if (isArcaneDamage(source) && target.getAttributes().hasAttribute(ModAttributes.ARCANE_RESIST)) {
-            double resist = target.getAttributeValue(ModAttributes.ARCANE_RESIST);
-            applyResistance(event, resist, "arcane");
+        if (isArcaneDamage(source)) {
+            applyResistance(event, ElementalStats.resist(target, Element.ARCANE), "arcane");
         }
     }
 
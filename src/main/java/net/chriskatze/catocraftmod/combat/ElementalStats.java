@@ -0,0 +1,73 @@
+package net.chriskatze.catocraftmod.combat;
+
+import net.chriskatze.catocraftmod.interfaces.ElementalStatsCache;
+import net.chriskatze.catocraftmod.util.ModAttributes;
+import net.minecraft.core.Holder;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+
+/**
+ * Cached elemental stats (power + resist) per living entity.
+ *
+ * The vector lives on the entity's {@link AttributeMap} (see
+ * {@link ElementalStatsCache}) and is only recomputed after one of its
+ * attributes changed, so damage calculations do no attribute lookups per hit.
+ */
+public final class ElementalStats {
+    private ElementalStats() {}
+
+    public static final int SIZE = 6;
+    private static final int RESIST_OFFSET = 3;
+
+    // Bumped when the runtime attribute holders are (re)initialized → all cached vectors are stale
+    private static volatile int generation = 0;
+
+    public static float power(LivingEntity entity, Element element) {
+        return stats(entity)[slot(element)];
+    }
+
+    public static float resist(LivingEntity entity, Element element) {
+        return stats(entity)[RESIST_OFFSET + slot(element)];
+    }
+
+    private static float[] stats(LivingEntity entity) {
+        return ((ElementalStatsCache) entity.getAttributes()).catocraft$getElementalStats();
+    }
+
+    private static int slot(Element element) {
+        return switch (element) {
+            case FIRE -> 0;
+            case FROST -> 1;
+            case ARCANE -> 2;
+        };
+    }
+
+    // -------------------------------------------------------------
+    // Cache maintenance (called from AttributeMapElementalCacheMixin)
+    // -------------------------------------------------------------
+    public static int generation() {
+        return generation;
+    }
+
+    /** Invalidates every cached vector, e.g. after attribute holders were re-resolved. */
+    public static synchronized void invalidateAll() {
+        generation++;
+    }
+
+    /** Fills {@code out} with fire/frost/arcane power followed by fire/frost/arcane resist. */
+    public static void compute(AttributeMap map, float[] out) {
+        out[0] = value(map, ModAttributes.FIRE_POWER_HOLDER, ModAttributes.FIRE_POWER);
+        out[1] = value(map, ModAttributes.FROST_POWER_HOLDER, ModAttributes.FROST_POWER);
+        out[2] = value(map, ModAttributes.ARCANE_POWER_HOLDER, ModAttributes.ARCANE_POWER);
+        out[RESIST_OFFSET] = value(map, ModAttributes.FIRE_RESIST_HOLDER, ModAttributes.FIRE_RESIST);
+        out[RESIST_OFFSET + 1] = value(map, ModAttributes.FROST_RESIST_HOLDER, ModAttributes.FROST_RESIST);
+        out[RESIST_OFFSET + 2] = value(map, ModAttributes.ARCANE_RESIST_HOLDER, ModAttributes.ARCANE_RESIST);
+    }
+
+    // Prefer the resolved runtime holder, fall back to the deferred one (same as before per call site)
+    private static float value(AttributeMap map, Holder<Attribute> runtime, Holder<Attribute> deferred) {
+        Holder<Attribute> holder = runtime != null ? runtime : deferred;
+        return map.hasAttribute(holder) ? (float) map.getValue(holder) : 0.0f;
+    }
+}
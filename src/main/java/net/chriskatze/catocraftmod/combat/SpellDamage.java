@@ -1,7 +1,6 @@
 package net.chriskatze.catocraftmod.combat;
 
 import net.chriskatze.catocraftmod.CatocraftMod;
-import net.chriskatze.catocraftmod.util.ModAttributes;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.damagesource.DamageSource;
 import net.minecraft.world.damagesource.DamageTypes;
@@ -18,8 +17,8 @@ public final class SpellDamage {
      * Computes scaled elemental damage using power & resist.
      */
     public static float computeFinalDamage(LivingEntity attacker, LivingEntity target, Element element, float base) {
-        double power = getPower(attacker, element);
-        double resist = getResist(target, element);
+        double power = ElementalStats.power(attacker, element);
+        double resist = ElementalStats.resist(target, element);
 
         // Clamp resist between -0.9 and +0.9 (never heals / never full immunity)
         double clampedResist = Math.max(-0.9, Math.min(0.9, resist));
@@ -42,7 +41,7 @@ public final class SpellDamage {
         CatocraftMod.LOGGER.debug("[SpellDamage] {} dealt {} {} dmg to {} (power={}, resist={})",
                 attacker.getName().getString(), amount, element.name().toLowerCase(),
                 target.getName().getString(),
-                getPower(attacker, element), getResist(target, element));
+                ElementalStats.power(attacker, element), ElementalStats.resist(target, element));
 
         return success;
     }
@@ -50,28 +49,6 @@ public final class SpellDamage {
     // -------------------------------------------------------------
     // Internal utilities
     // -------------------------------------------------------------
-    private static double getPower(LivingEntity entity, Element element) {
-        return switch (element) {
-            case FIRE -> getAttrValue(entity, ModAttributes.FIRE_POWER_HOLDER);
-            case FROST -> getAttrValue(entity, ModAttributes.FROST_POWER_HOLDER);
-            case ARCANE -> getAttrValue(entity, ModAttributes.ARCANE_POWER_HOLDER);
-        };
-    }
-
-    private static double getResist(LivingEntity entity, Element element) {
-        return switch (element) {
-            case FIRE -> getAttrValue(entity, ModAttributes.FIRE_RESIST_HOLDER);
-            case FROST -> getAttrValue(entity, ModAttributes.FROST_RESIST_HOLDER);
-            case ARCANE -> getAttrValue(entity, ModAttributes.ARCANE_RESIST_HOLDER);
-        };
-    }
-
-    private static double getAttrValue(LivingEntity entity, net.minecraft.core.Holder<net.minecraft.world.entity.ai.attributes.Attribute> attr) {
-        if (attr == null) return 0.0;
-        var instance = entity.getAttribute(attr);
-        return instance != null ? instance.getValue() : 0.0;
-    }
-
     private static DamageSource makeDamageSource(LivingEntity attacker, LivingEntity target, Element element) {
         if (!(target.level() instanceof ServerLevel server)) return null;
         return switch (element) {
@@ -2,55 +2,39 @@ package net.chriskatze.catocraftmod.command;
 
 import com.mojang.brigadier.CommandDispatcher;
 import net.chriskatze.catocraftmod.CatocraftMod;
-import net.chriskatze.catocraftmod.menu.runtime.DynamicMenuWorldData;
+import net.chriskatze.catocraftmod.menu.runtime.DynamicMenuCleanupScan;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
-import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.Component;
-import net.minecraft.server.level.ServerLevel;
-
-import java.util.ArrayList;
-import java.util.List;
-
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * /cleandynamicmenus [dryrun]
+ *
+ * Scans the DynamicMenu data of the caller's dimension in the background and removes
+ * empty menus; progress and per-player sizes are streamed to the caller.
+ */
 public class CleanDynamicMenusCommand {
 
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
         dispatcher.register(Commands.literal("cleandynamicmenus")
                 .requires(source -> source.hasPermission(2)) // OP-only
-                .executes(ctx -> {
-                    ServerLevel level = ctx.getSource().getLevel();
-                    DynamicMenuWorldData data = DynamicMenuWorldData.get(level);
-
-                    CompoundTag before = data.getDataTag();
-                    int beforeCount = before.getAllKeys().size();
-
-                    // Build per-player log
-                    List<String> playerSummaries = new ArrayList<>();
-                    for (String playerId : before.getAllKeys()) {
-                        CompoundTag playerTag = before.getCompound(playerId);
-                        CompoundTag menus = playerTag.getCompound("CatoDynamicMenus");
-                        int count = menus.getAllKeys().size();
-                        playerSummaries.add(" • " + playerId + " → " + count + " menu(s) before cleanup");
-                    }
-
-                    data.cleanup(level.registryAccess());
-
-                    CompoundTag after = data.getDataTag();
-                    int afterCount = after.getAllKeys().size();
-                    int removed = beforeCount - afterCount;
-
-                    // Send message to operator
-                    StringBuilder msg = new StringBuilder("🧹 Cleaned DynamicMenu data:");
-                    for (String s : playerSummaries) msg.append("\n").append(s);
-                    msg.append("\n → Removed ").append(removed).append(" entries total.");
-
-                    ctx.getSource().sendSuccess(() -> Component.literal(msg.toString()), true);
-
-                    CatocraftMod.LOGGER.info("[DynamicMenu] Manual cleanup by {} → removed {} entries",
-                            ctx.getSource().getTextName(), removed);
-
-                    return removed;
-                })
+                .executes(ctx -> start(ctx.getSource(), false))
+                .then(Commands.literal("dryrun").executes(ctx -> start(ctx.getSource(), true)))
         );
     }
-}
\ No newline at end of file
+
+    private static int start(CommandSourceStack source, boolean dryRun) {
+        MinecraftServer server = source.getServer();
+        boolean started = DynamicMenuCleanupScan.start(source.getLevel(), dryRun,
+                line -> server.execute(() -> source.sendSystemMessage(Component.literal("🧹 " + line))));
+
+        if (!started) {
+            source.sendFailure(Component.literal("A DynamicMenu cleanup is already in progress."));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("Started DynamicMenu cleanup" + (dryRun ? " (dry run)" : "") + "…"), true);
+        CatocraftMod.LOGGER.info("[DynamicMenu] Manual cleanup{} started by {}", dryRun ? " (dry run)" : "", source.getTextName());
+        return 1;
+    }
+}
@@ -0,0 +1,89 @@
+package net.chriskatze.catocraftmod.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.chriskatze.catocraftmod.capability.EquipmentDataHandler;
+import net.chriskatze.catocraftmod.capability.EquipmentDataTool;
+import net.chriskatze.catocraftmod.network.MenuSyncHelper;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.Locale;
+
+/**
+ * Command group: /equipmentdata ...
+ *  - /equipmentdata verify            → Checks every stored payload and backup (read-only)
+ *  - /equipmentdata migrate [dryrun]  → Restores broken files from backups, rewrites old formats
+ *  - /equipmentdata compact [dryrun]  → Migrate + prune redundant backups + compact the packed store
+ *  - /equipmentdata stats             → Save queue / journal / prefetch counters
+ *  - /equipmentdata syncsize          → Full sync size per online player, CompoundTag vs binary payload
+ *
+ * Runs in the background; progress is streamed to the caller.
+ */
+public class EquipmentDataCommand {
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("equipmentdata")
+                .requires(source -> source.hasPermission(3))
+                .then(mode(EquipmentDataTool.Mode.VERIFY, false))
+                .then(mode(EquipmentDataTool.Mode.MIGRATE, true))
+                .then(mode(EquipmentDataTool.Mode.COMPACT, true))
+                .then(Commands.literal("stats")
+                        .executes(ctx -> {
+                            ctx.getSource().sendSuccess(() -> Component.literal(EquipmentDataHandler.getSaveQueueStats()), false);
+                            return 1;
+                        }))
+                .then(Commands.literal("syncsize")
+                        .executes(ctx -> syncSize(ctx.getSource())))
+        );
+    }
+
+    private static LiteralArgumentBuilder<CommandSourceStack> mode(EquipmentDataTool.Mode mode, boolean allowDryRun) {
+        LiteralArgumentBuilder<CommandSourceStack> node = Commands.literal(mode.name().toLowerCase(Locale.ROOT))
+                .executes(ctx -> start(ctx.getSource(), mode, false));
+        if (allowDryRun) node.then(Commands.literal("dryrun").executes(ctx -> start(ctx.getSource(), mode, true)));
+        return node;
+    }
+
+    private static int syncSize(CommandSourceStack source) {
+        StringBuilder msg = new StringBuilder("📏 Full sync size (CompoundTag → binary):");
+        long nbtTotal = 0, binaryTotal = 0;
+        int tableBytes = 0;
+        for (ServerPlayer player : source.getServer().getPlayerList().getPlayers()) {
+            MenuSyncHelper.SyncSize size = MenuSyncHelper.measureFullSync(player);
+            nbtTotal += size.nbtBytes();
+            binaryTotal += size.binaryBytes();
+            tableBytes = size.tableBytes();
+            msg.append("\n • ").append(player.getGameProfile().getName()).append(" → ")
+                    .append(size.nbtBytes()).append(" B → ").append(size.binaryBytes()).append(" B (")
+                    .append(percent(size.binaryBytes(), size.nbtBytes())).append(")");
+        }
+        msg.append("\n → Total ").append(nbtTotal).append(" B → ").append(binaryTotal).append(" B (")
+                .append(percent(binaryTotal, nbtTotal)).append("), plus ").append(tableBytes)
+                .append(" B group table once per connection.");
+
+        source.sendSuccess(() -> Component.literal(msg.toString()), false);
+        return (int) binaryTotal;
+    }
+
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "n/a" : String.format(Locale.ROOT, "%.0f%%", 100.0 * part / whole);
+    }
+
+    private static int start(CommandSourceStack source, EquipmentDataTool.Mode mode, boolean dryRun) {
+        MinecraftServer server = source.getServer();
+        boolean started = EquipmentDataHandler.startMaintenance(server, mode, dryRun,
+                line -> server.execute(() -> source.sendSystemMessage(Component.literal("🛠 " + line))));
+
+        if (!started) {
+            source.sendFailure(Component.literal("An equipment data run is already in progress."));
+            return 0;
+        }
+        source.sendSuccess(() -> Component.literal("Started equipment data " + mode.name().toLowerCase(Locale.ROOT)
+                + (dryRun ? " (dry run)" : "") + "…"), true);
+        return 1;
+    }
+}
@@ -0,0 +1,144 @@
+package net.chriskatze.catocraftmod.config;
+
+import com.google.gson.*;
+import net.chriskatze.catocraftmod.CatocraftMod;
+
+import java.io.*;
+import java.util.Locale;
+
+/**
+ * Settings for equipment persistence ({@code config/catocraftmod/equipment_io.json}):
+ * the IO pool and the storage backend. Values are read when the pool / store is
+ * (re)created, i.e. at server start.
+ */
+public class EquipmentIOConfig {
+
+    /**
+     * What a caller does when its worker's queue is full. Either way the task is parked in the
+     * worker's unbounded overflow list, which it drains in order, so a player's IO always
+     * happens in submission order; the policies only differ in whether the caller waits.
+     */
+    public enum Backpressure {
+        /**
+         * Wait up to {@link #blockTimeoutMillis} for the worker to take the task, then move on
+         * and leave it parked; a worker that timed out a caller is not waited on again until it
+         * has finished another task.
+         */
+        BLOCK,
+        /** Never wait. */
+        OVERFLOW
+    }
+
+    /** Storage backend for equipment payloads. */
+    public enum Store {
+        /** One file per player plus ".bakN" copies in the playerdata folder. */
+        FILES,
+        /** Sharded append-only files with an offset index (for very large player bases). */
+        PACKED
+    }
+
+    // ---------------- CONFIG DATA ----------------
+    private static int workerThreads = defaultWorkers();
+    private static int queueCapacity = 256;
+    private static Backpressure backpressure = Backpressure.BLOCK;
+    private static long blockTimeoutMillis = 250;
+    private static int shutdownTimeoutSeconds = 10;
+    private static Store store = Store.FILES;
+    private static int packedShards = 16;
+    private static int backupSweepMinutes = 360;
+    private static boolean journal = true;
+    private static int prefetchMaxEntries = 128;
+    private static int prefetchTtlSeconds = 30;
+
+    // ---------------- INITIALIZATION ----------------
+    public static void loadConfig() {
+        try {
+            File configDir = new File("config/catocraftmod");
+            if (!configDir.exists()) configDir.mkdirs();
+            File configFile = new File(configDir, "equipment_io.json");
+
+            if (!configFile.exists()) createDefaultConfig(configFile);
+
+            JsonObject obj;
+            try (FileReader reader = new FileReader(configFile)) {
+                obj = JsonParser.parseReader(reader).getAsJsonObject();
+            }
+
+            workerThreads = clamp(obj.has("workerThreads") ? obj.get("workerThreads").getAsInt() : defaultWorkers(), 1, 64);
+            queueCapacity = clamp(obj.has("queueCapacity") ? obj.get("queueCapacity").getAsInt() : 256, 1, 65536);
+            blockTimeoutMillis = Math.max(0, obj.has("blockTimeoutMillis") ? obj.get("blockTimeoutMillis").getAsLong() : 250);
+            shutdownTimeoutSeconds = clamp(obj.has("shutdownTimeoutSeconds") ? obj.get("shutdownTimeoutSeconds").getAsInt() : 10, 1, 600);
+
+            packedShards = clamp(obj.has("packedShards") ? obj.get("packedShards").getAsInt() : 16, 1, 256);
+            journal = !obj.has("journal") || obj.get("journal").getAsBoolean();
+            prefetchMaxEntries = clamp(obj.has("prefetchMaxEntries") ? obj.get("prefetchMaxEntries").getAsInt() : 128, 0, 4096);
+            prefetchTtlSeconds = clamp(obj.has("prefetchTtlSeconds") ? obj.get("prefetchTtlSeconds").getAsInt() : 30, 1, 600);
+            backupSweepMinutes = clamp(obj.has("backupSweepMinutes") ? obj.get("backupSweepMinutes").getAsInt() : 360, 1, 10080);
+
+            String storeName = obj.has("store") ? obj.get("store").getAsString() : Store.FILES.name();
+            try {
+                store = Store.valueOf(storeName.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                CatocraftMod.LOGGER.warn("[EquipmentIOConfig] Unknown store '{}', using FILES.", storeName);
+                store = Store.FILES;
+            }
+
+            String policy = obj.has("backpressure") ? obj.get("backpressure").getAsString() : Backpressure.BLOCK.name();
+            try {
+                // CALLER_RUNS ran tasks out of order on the calling thread; its closest replacement is OVERFLOW
+                if (policy.trim().equalsIgnoreCase("CALLER_RUNS")) {
+                    CatocraftMod.LOGGER.warn("[EquipmentIOConfig] Backpressure 'CALLER_RUNS' is no longer supported, using OVERFLOW.");
+                    policy = Backpressure.OVERFLOW.name();
+                }
+                backpressure = Backpressure.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                CatocraftMod.LOGGER.warn("[EquipmentIOConfig] Unknown backpressure policy '{}', using BLOCK.", policy);
+                backpressure = Backpressure.BLOCK;
+            }
+        } catch (Exception e) {
+            CatocraftMod.LOGGER.error("[EquipmentIOConfig] Failed to load equipment_io.json, using defaults.", e);
+        }
+    }
+
+    private static void createDefaultConfig(File configFile) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("workerThreads", defaultWorkers());
+        obj.addProperty("queueCapacity", 256);
+        obj.addProperty("backpressure", Backpressure.BLOCK.name());
+        obj.addProperty("blockTimeoutMillis", 250);
+        obj.addProperty("shutdownTimeoutSeconds", 10);
+        obj.addProperty("store", Store.FILES.name());
+        obj.addProperty("packedShards", 16);
+        obj.addProperty("backupSweepMinutes", 360);
+        obj.addProperty("journal", true);
+        obj.addProperty("prefetchMaxEntries", 128);
+        obj.addProperty("prefetchTtlSeconds", 30);
+
+        try (FileWriter writer = new FileWriter(configFile)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(obj, writer);
+        } catch (IOException e) {
+            CatocraftMod.LOGGER.error("[EquipmentIOConfig] Failed to write default config.", e);
+        }
+    }
+
+    // ---------------- UTILITIES ----------------
+    private static int defaultWorkers() {
+        return clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public static int getWorkerThreads() { return workerThreads; }
+    public static int getQueueCapacity() { return queueCapacity; }
+    public static Backpressure getBackpressure() { return backpressure; }
+    public static long getBlockTimeoutMillis() { return blockTimeoutMillis; }
+    public static int getShutdownTimeoutSeconds() { return shutdownTimeoutSeconds; }
+    public static Store getStore() { return store; }
+    public static int getPackedShards() { return packedShards; }
+    public static int getBackupSweepMinutes() { return backupSweepMinutes; }
+    public static boolean isJournalEnabled() { return journal; }
+    public static int getPrefetchMaxEntries() { return prefetchMaxEntries; }
+    public static int getPrefetchTtlSeconds() { return prefetchTtlSeconds; }
+}
@@ -0,0 +1,16 @@
+package net.chriskatze.catocraftmod.interfaces;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.world.entity.ai.attributes.AttributeMap}
+ * (one per living entity). Exposes a cached elemental stat vector that is
+ * recomputed only after an attribute of that entity changed.
+ *
+ * @see net.chriskatze.catocraftmod.combat.ElementalStats
+ */
+public interface ElementalStatsCache {
+    /**
+     * {@return fire/frost/arcane power followed by fire/frost/arcane resist}
+     * The array is owned by the cache — read only.
+     */
+    float[] catocraft$getElementalStats();
+}
@@ -8,7 +8,6 @@ import net.chriskatze.catocraftmod.capability.PlayerEquipmentCapability;
 import net.chriskatze.catocraftmod.capability.util.EquipmentUtils;
 import net.chriskatze.catocraftmod.menu.layout.EquipmentGroup;
 import net.chriskatze.catocraftmod.menu.layout.SlotEquipValidator;
-import net.chriskatze.catocraftmod.network.MenuSyncHelper;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.Holder;
 import net.minecraft.network.chat.Component;
@@ -43,6 +42,9 @@ public abstract class EquippableItemBase extends Item {
 
     private final ImmutableMultimap<Holder<Attribute>, AttributeModifier> attributeModifiers;
 
+    // Flat form of attributeModifiers for the equipment engine (compiled on first use)
+    private volatile ModifierTable modifierTable;
+
     protected EquippableItemBase(Properties properties, ImmutableMultimap<Holder<Attribute>, AttributeModifier> modifiers) {
         super(properties);
         this.attributeModifiers = modifiers == null ? ImmutableMultimap.of() : modifiers;
@@ -65,6 +67,16 @@ public abstract class EquippableItemBase extends Item {
         return attributeModifiers;
     }
 
+    /** Compiled, flat modifier table (attribute cells + amounts) used by the equipment engine. */
+    public ModifierTable getModifierTable() {
+        ModifierTable table = modifierTable;
+        if (table == null) {
+            table = ModifierTable.compile(attributeModifiers);
+            modifierTable = table;
+        }
+        return table;
+    }
+
     // ────────────────────────────────────────────────
     // Equip / Unequip Core Logic
     // ────────────────────────────────────────────────
@@ -76,6 +88,10 @@ public abstract class EquippableItemBase extends Item {
 
         PlayerEquipmentCapability cap = EquipmentCapabilityHandler.get(player);
         if (cap == null) return InteractionResultHolder.pass(stack);
+        if (cap.isLoading()) {
+            PlayerEquipmentCapability.notifyLoading(player);
+            return InteractionResultHolder.fail(stack);
+        }
 
         EquipmentGroup group = EquipmentGroup.fromKey(resolveGroupId(stack));
         if (group == null) {
@@ -83,13 +99,13 @@ public abstract class EquippableItemBase extends Item {
             return InteractionResultHolder.fail(stack);
         }
 
-        ItemStackHandler handler = cap.getAllGroups().get(group);
+        ItemStackHandler handler = cap.getHandler(group);
         if (handler == null) {
             player.displayClientMessage(Component.literal("No handler for group '" + group.getKey() + "'.").withStyle(ChatFormatting.RED), true);
             return InteractionResultHolder.fail(stack);
         }
 
-        int slotIndex = EquipmentUtils.findFirstValidSlot(cap.getAllGroups(), group);
+        int slotIndex = EquipmentUtils.findFirstValidSlot(handler);
         if (slotIndex == -1) {
             player.displayClientMessage(Component.literal("No valid slot available!").withStyle(ChatFormatting.RED), true);
             return InteractionResultHolder.fail(stack);
@@ -110,7 +126,7 @@ public abstract class EquippableItemBase extends Item {
 
         // ────────────── Regular Right-Click → Equip ──────────────
         if (equipped.isEmpty()) {
-            if (!SlotEquipValidator.canEquip((ServerPlayer) player, group, cap.getEquippedGroups())) {
+            if (!SlotEquipValidator.canEquip((ServerPlayer) player, group, cap.getEquippedMask())) {
                 player.displayClientMessage(Component.literal("Cannot equip — conflicts or requirements not met.").withStyle(ChatFormatting.RED), true);
                 return InteractionResultHolder.fail(stack);
             }
@@ -134,9 +150,8 @@ public abstract class EquippableItemBase extends Item {
     // ────────────────────────────────────────────────
 
     private void equipItem(Player player, PlayerEquipmentCapability cap, ItemStackHandler handler, int slot, ItemStack stack) {
-        handler.setStackInSlot(slot, stack.copy());
-        cap.applyAllAttributes();
-        MenuSyncHelper.syncToClient((ServerPlayer) player);
+        // One transaction → attributes, health and sync once
+        cap.batch(() -> handler.setStackInSlot(slot, stack.copy()));
 
         playEquipSound(player);
         player.displayClientMessage(Component.literal("Equipped item!").withStyle(ChatFormatting.GRAY), true);
@@ -146,10 +161,8 @@ public abstract class EquippableItemBase extends Item {
     private void unequipItem(Player player, PlayerEquipmentCapability cap, ItemStackHandler handler, int slot, ItemStack equipped) {
         boolean added = player.getInventory().add(equipped.copy());
         if (!added) player.drop(equipped.copy(), false);
-        handler.setStackInSlot(slot, ItemStack.EMPTY);
-
-        cap.applyAllAttributes();
-        MenuSyncHelper.syncToClient((ServerPlayer) player);
+        // Commit also unequips groups that required this one
+        cap.batch(() -> handler.setStackInSlot(slot, ItemStack.EMPTY));
 
         playUnequipSound(player);
         player.displayClientMessage(Component.literal("Unequipped item.").withStyle(ChatFormatting.GRAY), true);
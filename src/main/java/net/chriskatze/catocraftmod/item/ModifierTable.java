@@ -0,0 +1,143 @@
+package net.chriskatze.catocraftmod.item;
+
+import com.google.common.collect.Multimap;
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📋 Flat, precompiled attribute modifier table of an {@link EquippableItemBase}.
+ *
+ * Every entry is reduced to a <b>cell</b>: {@code attributeIndex * OPERATIONS + operation}.
+ * Attribute indices are dense and shared by all tables, so the equipment engine
+ * can sum the contributions of all equipped items into plain {@code double[]}
+ * arrays and only touch {@code AttributeInstance}s whose total actually changed.
+ *
+ * Aggregation per cell:
+ *  - ADD_VALUE / ADD_MULTIPLIED_BASE → amounts are summed
+ *  - ADD_MULTIPLIED_TOTAL            → factors {@code (1 + amount)} are multiplied
+ * which yields exactly the same attribute value as applying every modifier separately.
+ */
+public final class ModifierTable {
+
+    public static final int OPERATIONS = AttributeModifier.Operation.values().length;
+    private static final int TOTAL = AttributeModifier.Operation.ADD_MULTIPLIED_TOTAL.ordinal();
+
+    public static final ModifierTable EMPTY = new ModifierTable(new int[0], new double[0]);
+
+    // ────────────────────────────────────────────────
+    // Shared attribute index
+    // ────────────────────────────────────────────────
+    private static final Map<ResourceKey<Attribute>, Integer> ATTRIBUTE_INDEX = new ConcurrentHashMap<>();
+    private static final List<Holder<Attribute>> ATTRIBUTES = new ArrayList<>();
+    private static final List<ResourceLocation> CELL_IDS = new ArrayList<>();
+
+    private final int[] cells;
+    private final double[] amounts;
+
+    private ModifierTable(int[] cells, double[] amounts) {
+        this.cells = cells;
+        this.amounts = amounts;
+    }
+
+    /** Compiles a modifier multimap into a flat table. */
+    public static ModifierTable compile(Multimap<Holder<Attribute>, AttributeModifier> modifiers) {
+        if (modifiers == null || modifiers.isEmpty()) return EMPTY;
+
+        int[] cells = new int[modifiers.size()];
+        double[] amounts = new double[modifiers.size()];
+        int n = 0;
+        for (Map.Entry<Holder<Attribute>, AttributeModifier> entry : modifiers.entries()) {
+            int attribute = indexOf(entry.getKey());
+            if (attribute < 0) continue;
+            cells[n] = attribute * OPERATIONS + entry.getValue().operation().ordinal();
+            amounts[n] = entry.getValue().amount();
+            n++;
+        }
+        return n == 0 ? EMPTY : new ModifierTable(Arrays.copyOf(cells, n), Arrays.copyOf(amounts, n));
+    }
+
+    public boolean isEmpty() {
+        return cells.length == 0;
+    }
+
+    /**
+     * Adds this table to the accumulator. A cell is initialized (0, or 1 for
+     * multiplicative cells) the first time it is marked in {@code present}.
+     */
+    public void accumulate(double[] values, BitSet present) {
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            boolean multiplicative = cell % OPERATIONS == TOTAL;
+            if (!present.get(cell)) {
+                present.set(cell);
+                values[cell] = multiplicative ? 1.0 : 0.0;
+            }
+            if (multiplicative) values[cell] *= 1.0 + amounts[i];
+            else values[cell] += amounts[i];
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Cell helpers (shared by all tables)
+    // ────────────────────────────────────────────────
+
+    /** Number of cells currently addressable ({@code attributes * OPERATIONS}). */
+    public static synchronized int cellCount() {
+        return ATTRIBUTES.size() * OPERATIONS;
+    }
+
+    public static synchronized Holder<Attribute> attributeOf(int cell) {
+        return ATTRIBUTES.get(cell / OPERATIONS);
+    }
+
+    public static AttributeModifier.Operation operationOf(int cell) {
+        return AttributeModifier.Operation.values()[cell % OPERATIONS];
+    }
+
+    /** Stable modifier id of a cell: {@code catocraftmod:equipment/<ns>/<path>/<operation>}. */
+    public static synchronized ResourceLocation idOf(int cell) {
+        return CELL_IDS.get(cell);
+    }
+
+    /** Builds the aggregated modifier for a cell from its accumulated value. */
+    public static AttributeModifier modifierOf(int cell, double accumulated) {
+        double amount = cell % OPERATIONS == TOTAL ? accumulated - 1.0 : accumulated;
+        return new AttributeModifier(idOf(cell), amount, operationOf(cell));
+    }
+
+    private static int indexOf(Holder<Attribute> holder) {
+        Optional<ResourceKey<Attribute>> key = holder.unwrapKey();
+        if (key.isEmpty()) {
+            CatocraftMod.LOGGER.warn("[ModifierTable] Skipping unregistered attribute {}", holder);
+            return -1;
+        }
+
+        Integer index = ATTRIBUTE_INDEX.get(key.get());
+        if (index != null) return index;
+
+        synchronized (ModifierTable.class) {
+            return ATTRIBUTE_INDEX.computeIfAbsent(key.get(), k -> {
+                // Prefer the registry's own holder so attribute map lookups hit the same instance
+                Holder<Attribute> canonical = BuiltInRegistries.ATTRIBUTE.getHolder(k)
+                        .<Holder<Attribute>>map(h -> h)
+                        .orElse(holder);
+                ATTRIBUTES.add(canonical);
+
+                ResourceLocation loc = k.location();
+                for (AttributeModifier.Operation op : AttributeModifier.Operation.values()) {
+                    CELL_IDS.add(CatocraftMod.id("equipment/" + loc.getNamespace() + "/" + loc.getPath()
+                            + "/" + op.getSerializedName()));
+                }
+                return ATTRIBUTES.size() - 1;
+            });
+        }
+    }
+}
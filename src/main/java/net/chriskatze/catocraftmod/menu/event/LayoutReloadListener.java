@@ -4,10 +4,12 @@ import net.chriskatze.catocraftmod.CatocraftMod;
 import net.chriskatze.catocraftmod.capability.PlayerEquipmentCapability;
 import net.chriskatze.catocraftmod.capability.EquipmentCapabilityHandler;
 import net.chriskatze.catocraftmod.menu.layout.EquipmentGroup;
+import net.chriskatze.catocraftmod.menu.layout.ValidItemMatcher;
 import net.chriskatze.catocraftmod.network.MenuSyncHelper;
 import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
 import net.neoforged.neoforge.event.level.LevelEvent;
 import net.neoforged.neoforge.event.server.ServerStartedEvent;
 import net.neoforged.neoforge.event.server.ServerStoppedEvent;
@@ -53,6 +55,15 @@ public class LayoutReloadListener {
         CatocraftMod.LOGGER.info("[Catocraft] Reconciled equipment layouts for all players after server start.");
     }
 
+    /**
+     * Called on both sides after item tags were (re)bound — compiled valid_items verdicts are stale.
+     */
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        ValidItemMatcher.invalidateAll();
+        CatocraftMod.LOGGER.debug("[Catocraft] Tags updated ({}), cleared valid_items caches.", event.getUpdateCause());
+    }
+
     /**
      * Called when the server is stopped to clear stale data.
      */
@@ -30,11 +30,19 @@ public class PlayerJoinReloadListener {
             cap.applyAllAttributes();
             cap.scheduleHealthNormalization(20);
 
-            // 🔹 Instant client sync
+            // 🔹 Instant client sync (new connection → group table is sent again)
+            MenuSyncHelper.resetSession(player);
             MenuSyncHelper.syncToClient(player);
 
             CatocraftMod.LOGGER.info("[Catocraft] Refreshed and synced layouts for {} on join.",
                     player.getGameProfile().getName());
         }
     }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            MenuSyncHelper.resetSession(player);
+        }
+    }
 }
\ No newline at end of file
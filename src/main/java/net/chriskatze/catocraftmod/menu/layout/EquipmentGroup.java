@@ -39,20 +39,30 @@ import java.util.*;
  * ⚙️ Reloading:
  * Calling {@link #resetBaseGroups()} restores default base groups and clears
  * dynamically loaded ones — this is invoked automatically during data reloads.
+ *
+ * 🔢 Indexing:
+ * Every group gets a dense integer index (0..count-1) in registration order.
+ * Indices are reassigned on every reset, so per-player storage keyed by index
+ * must compare {@link #byIndex(int)} against its own group reference.
  */
 public final class EquipmentGroup {
 
     // Internal registry of all currently active groups
     private static final Map<String, EquipmentGroup> REGISTRY = new LinkedHashMap<>();
 
+    // Dense index → group table (same order as REGISTRY)
+    private static final List<EquipmentGroup> BY_INDEX = new ArrayList<>();
+
     private final String key;
     private final TagKey<Item> tag;
     private final ResourceLocation groupId;
+    private final int index;
 
-    private EquipmentGroup(String key, TagKey<Item> tag) {
+    private EquipmentGroup(String key, TagKey<Item> tag, int index) {
         this.key = key;
         this.tag = tag;
         this.groupId = CatocraftMod.id("equipment/" + key);
+        this.index = index;
     }
 
     // ────────────────────────────────────────────────
@@ -61,8 +71,12 @@ public final class EquipmentGroup {
 
     /** Registers a new equipment group dynamically or returns existing. */
     public static EquipmentGroup register(String key, TagKey<Item> tag) {
-        return REGISTRY.computeIfAbsent(key.toLowerCase(Locale.ROOT),
-                k -> new EquipmentGroup(k, tag));
+        return REGISTRY.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> {
+            EquipmentGroup group = new EquipmentGroup(k, tag, BY_INDEX.size());
+            BY_INDEX.add(group);
+            SlotLayoutLoader.bumpEpoch();
+            return group;
+        });
     }
 
     /** Registers a group without a tag (e.g. from JSON layout). */
@@ -75,9 +89,21 @@ public final class EquipmentGroup {
         return REGISTRY.values();
     }
 
+    /** Number of registered groups; valid indices are {@code 0..count()-1}. */
+    public static int count() {
+        return BY_INDEX.size();
+    }
+
+    /** Returns the group with the given index, or {@code null} if out of range. */
+    public static EquipmentGroup byIndex(int index) {
+        return index >= 0 && index < BY_INDEX.size() ? BY_INDEX.get(index) : null;
+    }
+
     /** Clears all groups and re-registers the built-in base groups. */
     public static void resetBaseGroups() {
         REGISTRY.clear();
+        BY_INDEX.clear();
+        SlotLayoutLoader.bumpEpoch();
         register("earrings", ModTags.Items.EARRINGS);
         register("rings", ModTags.Items.RINGS);
         register("necklaces", ModTags.Items.NECKLACES);
@@ -100,6 +126,11 @@ public final class EquipmentGroup {
         return groupId;
     }
 
+    /** Dense registry index of this group (registration order). */
+    public int getIndex() {
+        return index;
+    }
+
     // ────────────────────────────────────────────────
     // Lookup Helpers
     // ────────────────────────────────────────────────
@@ -151,7 +182,8 @@ public final class EquipmentGroup {
         CatocraftMod.LOGGER.info("[EquipmentGroup] Active groups: {} total", REGISTRY.size());
 
         for (EquipmentGroup group : REGISTRY.values()) {
-            CatocraftMod.LOGGER.info(" • {}  (id: {}, tag: {})",
+            CatocraftMod.LOGGER.info(" • #{} {}  (id: {}, tag: {})",
+                    group.getIndex(),
                     group.getKey(),
                     group.getGroupId(),
                     group.getTag() != null ? group.getTag().location() : "<none>");
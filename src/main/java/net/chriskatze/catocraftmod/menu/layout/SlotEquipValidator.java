@@ -1,16 +1,13 @@
 package net.chriskatze.catocraftmod.menu.layout;
 
-import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.tags.TagKey;
 import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -19,6 +16,8 @@ import java.util.Set;
  * Validates whether a group or item can be equipped based on JSON definitions
  * loaded through {@link SlotLayoutLoader}. Supports both client- and server-side
  * checks, requirements, conflicts, and valid item rules.
+ * Group rules are evaluated against the compiled {@link SlotRuleGraph},
+ * item rules against the definition's {@link ValidItemMatcher}.
  */
 public class SlotEquipValidator {
 
@@ -26,54 +25,29 @@ public class SlotEquipValidator {
     // GROUP VALIDATION — dependency & conflict logic
     // ────────────────────────────────────────────────
     public static boolean canEquip(ServerPlayer player, EquipmentGroup targetGroup, Set<EquipmentGroup> equippedGroups) {
-        SlotLayoutDefinition def = SlotLayoutLoader.getDefinition(targetGroup);
-        if (def == null) return true;
-
-        String targetKey = targetGroup.getKey();
-
-        // 1️⃣ Requirements
-        for (String req : def.requires()) {
-            boolean has = equippedGroups.stream()
-                    .anyMatch(g -> g.getKey().equalsIgnoreCase(req));
-            if (!has) {
-                player.displayClientMessage(Component.literal("⚠ You must equip " + req + " first!"), true);
-                return false;
-            }
-        }
-
-        // 2️⃣ Conflicts
-        for (String conflict : def.conflicts()) {
-            boolean hasConflict = equippedGroups.stream()
-                    .anyMatch(g -> g.getKey().equalsIgnoreCase(conflict));
-            if (hasConflict) {
-                player.displayClientMessage(
-                        Component.literal("You cannot equip " + targetKey + " while " + conflict + " is equipped!"),
-                        true
-                );
-                return false;
-            }
-        }
-
-// 3️⃣ Tag-based mutual exclusion (same category slots)
-        if (def.tags != null && !def.tags.isEmpty()) {
-            Set<String> thisTags = new HashSet<>(def.tags);
-            for (EquipmentGroup equipped : equippedGroups) {
-                SlotLayoutDefinition otherDef = SlotLayoutLoader.getDefinition(equipped);
-                if (otherDef == null || otherDef.tags == null) continue;
-
-                for (String tag : otherDef.tags) {
-                    if (thisTags.contains(tag)) {
-                        player.displayClientMessage(
-                                Component.literal("You already have an item equipped in another '" + tag + "' slot!"),
-                                true
-                        );
-                        return false;
-                    }
-                }
-            }
+        SlotRuleGraph graph = SlotRuleGraph.get();
+        BitSet mask = new BitSet(graph.size());
+        for (EquipmentGroup g : equippedGroups) {
+            int index = graph.indexOf(g);
+            if (index >= 0) mask.set(index);
         }
+        return canEquip(player, targetGroup, mask);
+    }
 
-        return true;
+    /**
+     * Index-based variant: {@code equippedMask} holds the {@link EquipmentGroup#getIndex() indices}
+     * of all equipped groups (see {@code PlayerEquipmentCapability#getEquippedMask()}).
+     * Requirements, conflicts and tag exclusion are precompiled in {@link SlotRuleGraph}.
+     */
+    public static boolean canEquip(ServerPlayer player, EquipmentGroup targetGroup, BitSet equippedMask) {
+        SlotRuleGraph graph = SlotRuleGraph.get();
+        int index = graph.indexOf(targetGroup);
+        if (graph.canEquip(index, equippedMask)) return true;
+
+        // Denied → build the message only now
+        Component reason = graph.explainDenial(index, equippedMask);
+        if (reason != null && player != null) player.displayClientMessage(reason, true);
+        return false;
     }
 
     // ────────────────────────────────────────────────
@@ -85,10 +59,7 @@ public class SlotEquipValidator {
         SlotLayoutDefinition def = SlotLayoutLoader.getDefinition(group);
         if (def == null) return true;
 
-        List<String> rules = def.valid_items();
-        if (rules == null || rules.isEmpty()) return true;
-
-        boolean allowed = matchesAnyRule(stack, rules);
+        boolean allowed = def.validItemMatcher().test(stack);
         if (!allowed) {
             player.displayClientMessage(
                     Component.literal("That item cannot be equipped in " + group.getKey() + "."),
@@ -110,37 +81,8 @@ public class SlotEquipValidator {
         // Client-only fallback
         if (stack.isEmpty()) return true;
         SlotLayoutDefinition def = SlotLayoutLoader.getDefinition(groupId);
-        if (def == null || def.valid_items().isEmpty()) return true;
-        return matchesAnyRule(stack, def.valid_items());
-    }
-
-    // ────────────────────────────────────────────────
-    // Helper: rule matcher
-    // ────────────────────────────────────────────────
-    private static boolean matchesAnyRule(ItemStack stack, List<String> rules) {
-        for (String raw : rules) {
-            if (raw == null || raw.isBlank()) continue;
-            String rule = raw.trim();
-
-            // Tag rule (#mod:tag)
-            if (rule.startsWith("#")) {
-                ResourceLocation tagId = ResourceLocation.tryParse(rule.substring(1));
-                if (tagId != null) {
-                    TagKey<Item> key = TagKey.create(net.minecraft.core.registries.Registries.ITEM, tagId);
-                    if (stack.is(key)) return true;
-                }
-            } else {
-                // Direct item id (mod:item)
-                ResourceLocation itemId = ResourceLocation.tryParse(rule);
-                if (itemId != null) {
-                    Item item = BuiltInRegistries.ITEM.get(itemId);
-                    if (item != null && item != net.minecraft.world.item.Items.AIR && stack.is(item)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        if (def == null) return true;
+        return def.validItemMatcher().test(stack);
     }
 
     // ────────────────────────────────────────────────
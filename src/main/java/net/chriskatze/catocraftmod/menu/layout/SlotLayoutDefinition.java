@@ -45,6 +45,9 @@ public class SlotLayoutDefinition {
     public final List<String> conflictsWith;
     public final List<String> tags;
 
+    // Compiled "valid_items" (built on first use; definitions are replaced on every reload)
+    private volatile ValidItemMatcher validItemMatcher;
+
     public SlotLayoutDefinition(ResourceLocation id,
                                 int originX, int originY,
                                 int spacing, int wrapAfter,
@@ -184,4 +187,14 @@ public class SlotLayoutDefinition {
     public List<String> requires()    { return requires; }
     public List<String> conflicts()   { return conflictsMerged; }
     public List<String> linked_with() { return linkedWith; }
+
+    /** Compiled matcher for {@link #valid_items()}. */
+    public ValidItemMatcher validItemMatcher() {
+        ValidItemMatcher matcher = validItemMatcher;
+        if (matcher == null) {
+            matcher = ValidItemMatcher.compile(validItemsMerged);
+            validItemMatcher = matcher;
+        }
+        return matcher;
+    }
 }
\ No newline at end of file
@@ -33,6 +33,9 @@ public class SlotLayoutLoader extends SimpleJsonResourceReloadListener {
 
     private static ResourceLocation activeLayoutId = null;
 
+    // Bumped whenever definitions or the group registry change; compiled rule data keys off this
+    private static volatile int epoch = 0;
+
     public SlotLayoutLoader() {
         super(GSON, "slot_layouts");
     }
@@ -94,10 +97,28 @@ public class SlotLayoutLoader extends SimpleJsonResourceReloadListener {
             }
         });
 
+        bumpEpoch();
+
         CatocraftMod.LOGGER.info("[SlotLayoutLoader] Loaded {} layout groups and {} definitions.",
                 LAYOUTS.size(), DEFINITIONS.size());
     }
 
+    // ────────────────────────────────────────────────
+    // Epoch
+    // ────────────────────────────────────────────────
+
+    /**
+     * Layout epoch — changes on every reload and every {@link EquipmentGroup} registry change.
+     * Caches derived from definitions (e.g. {@link SlotRuleGraph}) compare against it.
+     */
+    public static int getEpoch() {
+        return epoch;
+    }
+
+    static synchronized void bumpEpoch() {
+        epoch++;
+    }
+
     // ────────────────────────────────────────────────
     // Accessors
     // ────────────────────────────────────────────────
@@ -0,0 +1,285 @@
+package net.chriskatze.catocraftmod.menu.layout;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.minecraft.network.chat.Component;
+
+import java.util.*;
+
+/**
+ * 🕸️ SlotRuleGraph — compiled form of all slot rules.
+ *
+ * Built once per layout epoch (see {@link SlotLayoutLoader#getEpoch()}) from the
+ * {@link SlotLayoutDefinition}s of all registered {@link EquipmentGroup}s:
+ *  - "requires"    → bitmask of groups that must be equipped
+ *  - "conflicts"   → bitmask of groups that must not be equipped
+ *  - "tags"        → bitmask of groups sharing a tag (same category exclusion)
+ *  - "requires"⁻¹  → transitive closure of dependents (cascading unequip)
+ *  - "linked_with" → index list of mirrored groups
+ *
+ * Rule strings resolve to groups once, by key: "earrings", "equipment/earrings"
+ * and "catocraftmod:equipment/earrings" all name the same group.
+ * All masks are indexed by {@link EquipmentGroup#getIndex()}.
+ */
+public final class SlotRuleGraph {
+
+    private static volatile SlotRuleGraph current;
+
+    private static final int[] NO_LINKS = new int[0];
+
+    private final int epoch;
+    private final EquipmentGroup[] groups;
+    private final Node[] nodes;
+
+    /** Compiled rules of a single group. Rule names are kept for failure messages. */
+    private record Node(List<String> requireNames, int[] requireIndices, BitSet requires,
+                        boolean unresolvedRequirement,
+                        List<String> conflictNames, int[] conflictIndices, BitSet conflicts,
+                        List<String> tags, BitSet tagConflicts,
+                        BitSet dependents, int[] linked) {}
+
+    private SlotRuleGraph(int epoch, EquipmentGroup[] groups, Node[] nodes) {
+        this.epoch = epoch;
+        this.groups = groups;
+        this.nodes = nodes;
+    }
+
+    // ────────────────────────────────────────────────
+    // Access
+    // ────────────────────────────────────────────────
+
+    /** Returns the graph for the current layout epoch, compiling it if needed. */
+    public static SlotRuleGraph get() {
+        SlotRuleGraph graph = current;
+        int epoch = SlotLayoutLoader.getEpoch();
+        if (graph != null && graph.epoch == epoch) return graph;
+
+        synchronized (SlotRuleGraph.class) {
+            graph = current;
+            if (graph == null || graph.epoch != epoch) {
+                graph = compile(epoch);
+                current = graph;
+            }
+            return graph;
+        }
+    }
+
+    /** Resolves a group to its compiled index, or -1 if it is not part of this graph. */
+    public int indexOf(EquipmentGroup group) {
+        if (group == null) return -1;
+        int index = group.getIndex();
+        if (index >= 0 && index < groups.length && groups[index] == group) return index;
+
+        // Stale instance from before a registry reset → match by key
+        EquipmentGroup currentGroup = EquipmentGroup.fromKey(group.getKey());
+        if (currentGroup == null) return -1;
+        index = currentGroup.getIndex();
+        return index >= 0 && index < groups.length && groups[index] == currentGroup ? index : -1;
+    }
+
+    public EquipmentGroup group(int index) {
+        return index >= 0 && index < groups.length ? groups[index] : null;
+    }
+
+    public int size() {
+        return groups.length;
+    }
+
+    /**
+     * Checks requires / conflicts / tag exclusion against a mask of equipped groups.
+     * Allocation-free; groups without a definition are always allowed.
+     */
+    public boolean canEquip(int index, BitSet equipped) {
+        if (index < 0 || index >= nodes.length) return true;
+        Node node = nodes[index];
+        if (node == null) return true;
+
+        // A requirement that names no registered group can never be satisfied
+        if (node.unresolvedRequirement || !containsAll(equipped, node.requires)) return false;
+        return !node.conflicts.intersects(equipped) && !node.tagConflicts.intersects(equipped);
+    }
+
+    /**
+     * Slow path: explains why {@link #canEquip(int, BitSet)} failed, using the
+     * same wording the validator always used. Returns {@code null} if allowed.
+     */
+    public Component explainDenial(int index, BitSet equipped) {
+        if (index < 0 || index >= nodes.length || nodes[index] == null) return null;
+        Node node = nodes[index];
+
+        // 1️⃣ Requirements (in declaration order)
+        for (int i = 0; i < node.requireIndices.length; i++) {
+            int req = node.requireIndices[i];
+            if (req < 0 || !equipped.get(req)) {
+                return Component.literal("⚠ You must equip " + node.requireNames.get(i) + " first!");
+            }
+        }
+
+        // 2️⃣ Conflicts
+        for (int i = 0; i < node.conflictIndices.length; i++) {
+            int conflict = node.conflictIndices[i];
+            if (conflict >= 0 && equipped.get(conflict)) {
+                return Component.literal("You cannot equip " + groups[index].getKey()
+                        + " while " + node.conflictNames.get(i) + " is equipped!");
+            }
+        }
+
+        // 3️⃣ Tag-based mutual exclusion
+        for (int other = equipped.nextSetBit(0); other >= 0; other = equipped.nextSetBit(other + 1)) {
+            if (!node.tagConflicts.get(other) || nodes[other] == null) continue;
+            for (String tag : nodes[other].tags) {
+                if (node.tags.contains(tag)) {
+                    return Component.literal("You already have an item equipped in another '" + tag + "' slot!");
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Every group that (transitively) requires the given group. Callers must not modify it. */
+    public BitSet dependentsOf(int index) {
+        if (index < 0 || index >= nodes.length || nodes[index] == null) return new BitSet();
+        return nodes[index].dependents;
+    }
+
+    /** Indices of the groups mirrored with the given group ("linked_with"). */
+    public int[] linkedOf(int index) {
+        if (index < 0 || index >= nodes.length || nodes[index] == null) return NO_LINKS;
+        return nodes[index].linked;
+    }
+
+    /**
+     * Resolves a rule string to a registered group.
+     * Accepts plain keys, "equipment/&lt;key&gt;" paths and full ids; case-insensitive.
+     */
+    public static EquipmentGroup resolveRule(String rule) {
+        if (rule == null) return null;
+        String key = rule.trim().toLowerCase(Locale.ROOT);
+        int colon = key.indexOf(':');
+        if (colon >= 0) key = key.substring(colon + 1);
+        key = key.substring(key.lastIndexOf('/') + 1);
+        return key.isEmpty() ? null : EquipmentGroup.fromKey(key);
+    }
+
+    // ────────────────────────────────────────────────
+    // Compilation
+    // ────────────────────────────────────────────────
+
+    private static SlotRuleGraph compile(int epoch) {
+        int count = EquipmentGroup.count();
+        EquipmentGroup[] groups = new EquipmentGroup[count];
+        SlotLayoutDefinition[] defs = new SlotLayoutDefinition[count];
+        for (int i = 0; i < count; i++) {
+            groups[i] = EquipmentGroup.byIndex(i);
+            defs[i] = SlotLayoutLoader.getDefinition(groups[i]);
+        }
+
+        // 🔹 Direct edges
+        int[][] requireIdx = new int[count][];
+        int[][] conflictIdx = new int[count][];
+        BitSet[] requires = new BitSet[count];
+        BitSet[] conflicts = new BitSet[count];
+        int[][] linked = new int[count][];
+        for (int i = 0; i < count; i++) {
+            SlotLayoutDefinition def = defs[i];
+            requires[i] = new BitSet(count);
+            conflicts[i] = new BitSet(count);
+            requireIdx[i] = resolveAll(def != null ? def.requires() : null, requires[i]);
+            conflictIdx[i] = resolveAll(def != null ? def.conflicts() : null, conflicts[i]);
+
+            BitSet links = new BitSet(count);
+            resolveAll(def != null ? def.linked_with() : null, links);
+            links.clear(i);
+            linked[i] = links.isEmpty() ? NO_LINKS : links.stream().toArray();
+        }
+
+        // 🔹 Tag exclusion: any two groups sharing a tag (including the group itself)
+        List<List<String>> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) tags.add(tagsOf(defs[i]));
+
+        BitSet[] tagConflicts = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            tagConflicts[i] = new BitSet(count);
+            if (tags.get(i).isEmpty()) continue;
+            for (int j = 0; j < count; j++) {
+                if (!Collections.disjoint(tags.get(i), tags.get(j))) tagConflicts[i].set(j);
+            }
+        }
+
+        // 🔹 Transitive dependents (cascading unequip)
+        BitSet[] dependents = dependents(requires);
+
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            SlotLayoutDefinition def = defs[i];
+            if (def == null) {
+                // No definition → no own rules, but others may still depend on it
+                nodes[i] = new Node(List.of(), new int[0], new BitSet(), false, List.of(), new int[0], new BitSet(),
+                        List.of(), new BitSet(), dependents[i], linked[i]);
+                continue;
+            }
+            boolean unresolved = Arrays.stream(requireIdx[i]).anyMatch(idx -> idx < 0);
+            nodes[i] = new Node(List.copyOf(def.requires()), requireIdx[i], requires[i], unresolved,
+                    List.copyOf(def.conflicts()), conflictIdx[i], conflicts[i],
+                    tags.get(i), tagConflicts[i], dependents[i], linked[i]);
+        }
+
+        CatocraftMod.LOGGER.debug("[SlotRuleGraph] Compiled rules for {} groups (epoch {}).", count, epoch);
+        return new SlotRuleGraph(epoch, groups, nodes);
+    }
+
+    /**
+     * Reverses the "requires" edges ({@code requires[i]} = groups i needs) and closes over
+     * them: {@code result[i]} holds every group that directly or transitively requires i,
+     * never i itself (cycles included).
+     */
+    static BitSet[] dependents(BitSet[] requires) {
+        int count = requires.length;
+        BitSet[] direct = new BitSet[count];
+        for (int i = 0; i < count; i++) direct[i] = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            for (int req = requires[i].nextSetBit(0); req >= 0; req = requires[i].nextSetBit(req + 1)) {
+                direct[req].set(i);
+            }
+        }
+        BitSet[] dependents = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            BitSet closure = new BitSet(count);
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(i);
+            while (!queue.isEmpty()) {
+                BitSet next = direct[queue.poll()];
+                for (int d = next.nextSetBit(0); d >= 0; d = next.nextSetBit(d + 1)) {
+                    if (d != i && !closure.get(d)) {
+                        closure.set(d);
+                        queue.add(d);
+                    }
+                }
+            }
+            dependents[i] = closure;
+        }
+        return dependents;
+    }
+
+    /** Resolves rule strings into indices (-1 = unknown group) and sets them in {@code mask}. */
+    private static int[] resolveAll(List<String> rules, BitSet mask) {
+        if (rules == null || rules.isEmpty()) return new int[0];
+        int[] indices = new int[rules.size()];
+        for (int i = 0; i < indices.length; i++) {
+            EquipmentGroup group = resolveRule(rules.get(i));
+            indices[i] = group != null ? group.getIndex() : -1;
+            if (indices[i] >= 0) mask.set(indices[i]);
+        }
+        return indices;
+    }
+
+    private static List<String> tagsOf(SlotLayoutDefinition def) {
+        return def == null || def.tags == null ? List.of() : List.copyOf(def.tags);
+    }
+
+    private static boolean containsAll(BitSet set, BitSet subset) {
+        for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+            if (!set.get(i)) return false;
+        }
+        return true;
+    }
+}
@@ -3,6 +3,7 @@ package net.chriskatze.catocraftmod.menu.layout;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -20,12 +21,27 @@ public class SlotRuleManager {
     /**
      * Checks whether equipping a group is allowed, given currently equipped groups.
      * Returns a message if disallowed, or {@code null} if allowed.
+     * Definitions that belong to a registered group are checked via {@link SlotRuleGraph};
+     * the string matching below only covers ad-hoc definition maps.
      */
     public static Component canEquip(String targetGroup,
                                      Set<String> equippedGroups,
                                      Map<String, SlotLayoutDefinition> defs,
                                      ServerPlayer player) {
 
+        // Registered group → compiled rules (same resolution as SlotEquipValidator)
+        EquipmentGroup group = SlotRuleGraph.resolveRule(targetGroup);
+        if (group != null && defs.get(targetGroup) == SlotLayoutLoader.getDefinition(group)) {
+            SlotRuleGraph graph = SlotRuleGraph.get();
+            BitSet mask = new BitSet(graph.size());
+            for (String equipped : equippedGroups) {
+                int index = graph.indexOf(SlotRuleGraph.resolveRule(equipped));
+                if (index >= 0) mask.set(index);
+            }
+            int index = graph.indexOf(group);
+            return graph.canEquip(index, mask) ? null : graph.explainDenial(index, mask);
+        }
+
         SlotLayoutDefinition def = defs.get(targetGroup);
         if (def == null) return null; // No definition → no rules → allow
 
@@ -0,0 +1,106 @@
+package net.chriskatze.catocraftmod.menu.layout;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🎯 Compiled form of a "valid_items" rule list.
+ *
+ * Rules are parsed once per {@link SlotLayoutDefinition}:
+ *  - "mod:item"  → item identity set
+ *  - "#mod:tag"  → resolved {@link TagKey} list
+ *
+ * Verdicts are memoized per {@link Item}. Tag membership only changes on a tag
+ * reload, so all caches are dropped by {@link #invalidateAll()} (TagsUpdatedEvent).
+ */
+public final class ValidItemMatcher {
+
+    /** Matcher for an empty rule list — everything is allowed. */
+    public static final ValidItemMatcher ANY = new ValidItemMatcher(Set.of(), List.of(), true);
+
+    // Bumped on every tag reload; each matcher lazily drops its verdicts when it sees a new value
+    private static volatile int tagGeneration = 0;
+
+    private final Set<Item> items;
+    private final List<TagKey<Item>> tags;
+    private final boolean allowAll;
+
+    private final Map<Item, Boolean> verdicts = new ConcurrentHashMap<>();
+    private volatile int cachedGeneration = tagGeneration;
+
+    private ValidItemMatcher(Set<Item> items, List<TagKey<Item>> tags, boolean allowAll) {
+        this.items = items;
+        this.tags = tags;
+        this.allowAll = allowAll;
+    }
+
+    /** Parses a rule list; invalid entries are skipped (same as the old string matcher). */
+    public static ValidItemMatcher compile(List<String> rules) {
+        if (rules == null || rules.isEmpty()) return ANY;
+
+        Set<Item> items = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<TagKey<Item>> tags = new ArrayList<>();
+
+        for (String raw : rules) {
+            if (raw == null || raw.isBlank()) continue;
+            String rule = raw.trim();
+
+            // Tag rule (#mod:tag)
+            if (rule.startsWith("#")) {
+                ResourceLocation tagId = ResourceLocation.tryParse(rule.substring(1));
+                if (tagId != null) tags.add(TagKey.create(Registries.ITEM, tagId));
+            } else {
+                // Direct item id (mod:item)
+                ResourceLocation itemId = ResourceLocation.tryParse(rule);
+                if (itemId == null) continue;
+                Item item = BuiltInRegistries.ITEM.get(itemId);
+                if (item != null && item != Items.AIR) items.add(item);
+                else CatocraftMod.LOGGER.debug("[ValidItemMatcher] Unknown item '{}' in valid_items.", rule);
+            }
+        }
+
+        // A non-empty list that resolved to nothing still rejects everything
+        return new ValidItemMatcher(items, List.copyOf(tags), false);
+    }
+
+    /** True if the stack satisfies at least one rule (empty stacks are always allowed by callers). */
+    public boolean test(ItemStack stack) {
+        if (allowAll) return true;
+        if (stack.isEmpty()) return false;
+
+        int generation = tagGeneration;
+        if (cachedGeneration != generation) {
+            verdicts.clear();
+            cachedGeneration = generation;
+        }
+
+        Item item = stack.getItem();
+        Boolean verdict = verdicts.get(item);
+        if (verdict == null) {
+            verdict = items.contains(item) || matchesTag(stack);
+            verdicts.put(item, verdict);
+        }
+        return verdict;
+    }
+
+    private boolean matchesTag(ItemStack stack) {
+        for (TagKey<Item> tag : tags) {
+            if (stack.is(tag)) return true;
+        }
+        return false;
+    }
+
+    /** Drops all memoized verdicts (call after tags were reloaded). */
+    public static synchronized void invalidateAll() {
+        tagGeneration++;
+    }
+}
@@ -0,0 +1,195 @@
+package net.chriskatze.catocraftmod.menu.runtime;
+
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 🧹 Background scan behind {@code /cleandynamicmenus}.
+ *
+ * The scan reads a detached copy of the stored tags, built one shard at a time
+ * ({@link DynamicMenuWorldData#BUCKETS} shards): a loaded shard is copied in its own short
+ * server-thread task, so ticks keep running between shards, and a shard that was never
+ * loaded is read from its saved file on the worker instead of being force-loaded. The
+ * search for empty menus and the per-player size statistics run on the worker against that
+ * copy. The resulting removals are handed back to the server thread, which re-checks each
+ * one against the live data before removing it ({@link DynamicMenuWorldData#removeEmpty}).
+ * A dry run stops after the scan.
+ */
+public final class DynamicMenuCleanupScan {
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 2000;
+    private static final int TOP_PLAYERS = 10;
+    private static final long SHARD_COPY_TIMEOUT_SECONDS = 30;
+
+    // Token of the scan in progress, null when idle; cleared by reset() when the server stops
+    private static final AtomicReference<Object> RUNNING = new AtomicReference<>();
+
+    /** Size of one player's stored menu data in the snapshot. */
+    public record PlayerStats(String uuid, int menus, int emptyMenus, long bytes, long lastTouched) {}
+
+    /** What the scan found; {@code removals} maps player UUID → empty layouts. */
+    public record Result(List<PlayerStats> players, Map<String, List<String>> removals, long totalBytes, long reclaimableBytes) {
+        public int emptyMenus() {
+            return removals.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    private DynamicMenuCleanupScan() {}
+
+    /**
+     * Starts a scan of the level's menu data; returns {@code false} if one is already running.
+     * {@code progress} is called from the worker and from the server thread.
+     */
+    public static boolean start(ServerLevel level, boolean dryRun, Consumer<String> progress) {
+        Object run = new Object();
+        if (!RUNNING.compareAndSet(null, run)) return false;
+
+        MinecraftServer server = level.getServer();
+        DynamicMenuWorldData data;
+        try {
+            data = DynamicMenuWorldData.get(level);
+        } catch (RuntimeException e) {
+            RUNNING.compareAndSet(run, null);
+            throw e;
+        }
+        Path dataFolder = DynamicMenuWorldData.dataFolder(level);
+
+        Thread worker = new Thread(() -> {
+            try {
+                Map<String, CompoundTag> snapshot = collect(server, level, data, dataFolder, run, progress);
+                Result result = scan(snapshot, progress);
+                server.execute(() -> {
+                    if (RUNNING.get() != run) return;
+                    try {
+                        finish(level, result, dryRun, progress);
+                    } finally {
+                        RUNNING.compareAndSet(run, null);
+                    }
+                });
+            } catch (Exception e) {
+                CatocraftMod.LOGGER.error("[DynamicMenu] Cleanup scan failed", e);
+                progress.accept("Failed: " + e.getMessage());
+                RUNNING.compareAndSet(run, null);
+            }
+        }, "DynamicMenu-Cleanup");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    /** Forgets a scan left behind by a stopped server; its worker gives up at the next shard. */
+    public static void reset() {
+        RUNNING.set(null);
+    }
+
+    /** Worker: builds the detached copy shard by shard (see the class comment). */
+    private static Map<String, CompoundTag> collect(MinecraftServer server, ServerLevel level, DynamicMenuWorldData data,
+                                                    Path dataFolder, Object run, Consumer<String> progress) throws Exception {
+        Map<String, CompoundTag> snapshot = new HashMap<>();
+        int unreadable = 0;
+        for (int bucket = 0; bucket < DynamicMenuWorldData.BUCKETS; bucket++) {
+            if (RUNNING.get() != run) throw new CancellationException("server stopped");
+
+            int b = bucket;
+            Map<String, CompoundTag> shard = CompletableFuture
+                    .supplyAsync(() -> data.snapshotShard(b, level.registryAccess()), server)
+                    .get(SHARD_COPY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (shard == null) {
+                try {
+                    shard = DynamicMenuWorldData.readSavedShard(dataFolder, b);
+                } catch (IOException e) {
+                    // only possible if the shard got loaded and saved meanwhile; its players are skipped this time
+                    CatocraftMod.LOGGER.warn("[DynamicMenu] Cleanup scan could not read shard {}: {}", b, e.toString());
+                    unreadable++;
+                    continue;
+                }
+            }
+            snapshot.putAll(shard);
+        }
+        if (unreadable > 0) progress.accept(unreadable + " shard(s) could not be read and were skipped.");
+        return snapshot;
+    }
+
+    /** Reads the snapshot only; never touches live data. */
+    static Result scan(Map<String, CompoundTag> snapshot, Consumer<String> progress) {
+        progress.accept("Scanning " + snapshot.size() + " player(s)…");
+
+        List<PlayerStats> players = new ArrayList<>(snapshot.size());
+        Map<String, List<String>> removals = new HashMap<>();
+        long totalBytes = 0, reclaimable = 0;
+        long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MILLIS;
+
+        for (Map.Entry<String, CompoundTag> entry : snapshot.entrySet()) {
+            CompoundTag playerTag = entry.getValue();
+            CompoundTag menus = playerTag.getCompound(DynamicMenuWorldData.MENUS_TAG);
+
+            List<String> empty = new ArrayList<>();
+            for (String key : menus.getAllKeys()) {
+                CompoundTag menuTag = menus.getCompound(key);
+                if (DynamicMenuWorldData.isEmptyMenu(menuTag)) {
+                    empty.add(key);
+                    reclaimable += menuTag.sizeInBytes();
+                }
+            }
+            // a player left with no menus is dropped as a whole
+            if (empty.size() == menus.size()) {
+                reclaimable += playerTag.sizeInBytes() - menus.sizeInBytes();
+                removals.put(entry.getKey(), empty);
+            } else if (!empty.isEmpty()) {
+                removals.put(entry.getKey(), empty);
+            }
+
+            long bytes = playerTag.sizeInBytes();
+            totalBytes += bytes;
+            players.add(new PlayerStats(entry.getKey(), menus.size(), empty.size(), bytes,
+                    playerTag.getLong(DynamicMenuWorldData.LAST_TOUCHED_TAG)));
+
+            long now = System.currentTimeMillis();
+            if (now >= nextProgress) {
+                progress.accept("… " + players.size() + "/" + snapshot.size() + " player(s), "
+                        + removals.size() + " with empty menus");
+                nextProgress = now + PROGRESS_INTERVAL_MILLIS;
+            }
+        }
+
+        players.sort(Comparator.comparingLong(PlayerStats::bytes).reversed());
+        return new Result(players, removals, totalBytes, reclaimable);
+    }
+
+    /** Server thread: applies the removals (unless dry run) and reports. */
+    private static void finish(ServerLevel level, Result result, boolean dryRun, Consumer<String> progress) {
+        StringBuilder msg = new StringBuilder("Largest players (" + result.players().size() + " total, "
+                + (result.totalBytes() / 1024) + " KiB):");
+        for (PlayerStats p : result.players().subList(0, Math.min(TOP_PLAYERS, result.players().size()))) {
+            msg.append("\n • ").append(p.uuid()).append(" → ").append(p.menus()).append(" menu(s), ")
+                    .append(p.emptyMenus()).append(" empty, ").append(p.bytes()).append(" bytes");
+        }
+        progress.accept(msg.toString());
+
+        if (dryRun) {
+            progress.accept("Dry run: would remove " + result.emptyMenus() + " empty menu(s) of "
+                    + result.removals().size() + " player(s), reclaiming ~" + result.reclaimableBytes() + " bytes.");
+            return;
+        }
+
+        DynamicMenuWorldData.CleanupStats stats = DynamicMenuWorldData.get(level)
+                .removeEmpty(result.removals(), level.registryAccess());
+        progress.accept("Removed " + stats.menusRemoved() + " empty menu(s) and " + stats.playersRemoved()
+                + " player(s), reclaimed " + stats.bytesReclaimed() + " bytes"
+                + (stats.menusRemoved() < result.emptyMenus() ? " (" + (result.emptyMenus() - stats.menusRemoved())
+                + " changed since the scan and were kept)." : "."));
+        CatocraftMod.LOGGER.info("[DynamicMenu] Cleanup of {} → removed {} menu(s), {} player(s), {} bytes",
+                level.dimension().location(), stats.menusRemoved(), stats.playersRemoved(), stats.bytesReclaimed());
+    }
+}
@@ -13,6 +13,7 @@ import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 /**
  * Reopens the player's last dynamic menu when they log in.
  * Gracefully handles missing or invalid layouts.
+ * On logout the player's cached menu handlers are written back and released.
  */
 @EventBusSubscriber(modid = CatocraftMod.MOD_ID)
 public class DynamicMenuEvents {
@@ -59,4 +60,10 @@ public class DynamicMenuEvents {
             DynamicMenuStorage.setLastOpened(player, ""); // clear invalid reference
         }
     }
+
+    @SubscribeEvent
+    public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer player)) return;
+        DynamicMenuStorage.evict(player);
+    }
 }
\ No newline at end of file
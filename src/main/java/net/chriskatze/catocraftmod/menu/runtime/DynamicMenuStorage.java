@@ -2,16 +2,17 @@ package net.chriskatze.catocraftmod.menu.runtime;
 
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
 import net.neoforged.neoforge.items.ItemStackHandler;
 
 /**
  * Persistent storage for dynamic menus.
- * Uses world SavedData per player on server side.
+ * Uses world SavedData per player on server side; handlers stay live in
+ * {@link DynamicMenuWorldData} between opens instead of round-tripping through NBT.
  */
 public class DynamicMenuStorage {
 
-    private static final String ROOT_TAG = "CatoDynamicMenus";
     private static final String LAST_OPENED = "LastOpened";
 
     public static ItemStackHandler getOrCreate(Player player, String layoutName, int size) {
@@ -21,36 +22,25 @@ public class DynamicMenuStorage {
             return new ItemStackHandler(size);
         }
 
+        // Live handler from the world data cache: deserialized once, written back on world save / logout
         ServerLevel level = (ServerLevel) player.level();
-        DynamicMenuWorldData data = DynamicMenuWorldData.get(level);
-
-        CompoundTag playerTag = data.getPlayer(player.getStringUUID());
-        CompoundTag root = playerTag.getCompound(ROOT_TAG);
-
-        ItemStackHandler handler = new ItemStackHandler(size);
-
-        if (root.contains(layoutName)) {
-            handler.deserializeNBT(level.registryAccess(), root.getCompound(layoutName));
-        } else {
-            save(player, layoutName, handler);
-        }
-
-        return handler;
+        return DynamicMenuWorldData.get(level)
+                .getHandler(player.getStringUUID(), layoutName, size, level.registryAccess());
     }
 
     public static void save(Player player, String layoutName, ItemStackHandler handler) {
         if (player.level().isClientSide()) return; // no-op on client
 
         ServerLevel level = (ServerLevel) player.level();
-        DynamicMenuWorldData data = DynamicMenuWorldData.get(level);
-
-        CompoundTag playerTag = data.getPlayer(player.getStringUUID());
-        CompoundTag root = playerTag.getCompound(ROOT_TAG);
-
-        root.put(layoutName, handler.serializeNBT(level.registryAccess()));
-        playerTag.put(ROOT_TAG, root);
+        DynamicMenuWorldData.get(level)
+                .storeHandler(player.getStringUUID(), layoutName, handler, level.registryAccess());
+    }
 
-        data.savePlayer(player.getStringUUID(), playerTag);
+    /** Writes back and releases the player's cached handlers in every dimension (logout). */
+    public static void evict(ServerPlayer player) {
+        for (ServerLevel level : player.server.getAllLevels()) {
+            DynamicMenuWorldData.get(level).evictPlayer(player.getStringUUID(), level.registryAccess());
+        }
     }
 
     public static void setLastOpened(Player player, String layoutName) {
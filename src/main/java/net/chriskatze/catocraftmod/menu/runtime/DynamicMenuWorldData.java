@@ -3,127 +3,456 @@ package net.chriskatze.catocraftmod.menu.runtime;
 import net.chriskatze.catocraftmod.CatocraftMod;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.dimension.DimensionType;
 import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraft.world.level.storage.DimensionDataStorage;
+import net.neoforged.neoforge.items.ItemStackHandler;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Stores all player menu data for the current world.
- * Saved in world/data/catocraft_dynamic_menus.dat
+ *
+ * Players are spread over {@value #BUCKETS} hashed shards, each its own SavedData file
+ * (world/data/catocraftmod_dynamic_menus_XX.dat). Only shards that changed are written
+ * on a world save, and a shard is read from disk the first time one of its players is
+ * accessed, so offline players cost nothing until they are needed.
+ *
+ * Menu handlers are cached live per (player, layout) inside their shard and written
+ * back only on a world save or when the player logs out.
+ *
+ * This class is the entry point and also owns the old single file
+ * (catocraftmod_dynamic_menus.dat): any content left there is moved into the shards
+ * on first access and the old file is emptied.
  */
 public class DynamicMenuWorldData extends SavedData {
 
     private static final String FILE_ID = CatocraftMod.MOD_ID + "_dynamic_menus";
+    static final String MENUS_TAG = "CatoDynamicMenus";
+    static final String LAST_TOUCHED_TAG = "LastTouched";
+    static final int BUCKETS = 32;
 
-    // Each player UUID → CompoundTag with their menus
-    private final Map<String, CompoundTag> playerData = new HashMap<>();
+    // Content of the pre-shard single file; empty once migrated
+    private final Map<String, CompoundTag> legacyData = new HashMap<>();
+
+    // Set by get(); shards are loaded lazily through it and kept here once loaded
+    private DimensionDataStorage storage;
+    private final Shard[] shards = new Shard[BUCKETS];
 
     public DynamicMenuWorldData() {}
 
-    // ✅ Load from NBT
+    // ✅ Load from NBT (legacy layout: player UUID → menus)
     public static DynamicMenuWorldData load(CompoundTag tag, HolderLookup.Provider provider) {
         DynamicMenuWorldData data = new DynamicMenuWorldData();
         for (String key : tag.getAllKeys()) {
-            data.playerData.put(key, tag.getCompound(key));
+            data.legacyData.put(key, tag.getCompound(key));
         }
         return data;
     }
 
-    // ✅ Save to NBT
+    // ✅ Save to NBT — player data lives in the shards, so this is empty after migration
     @Override
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
-        for (Map.Entry<String, CompoundTag> entry : playerData.entrySet()) {
+        for (Map.Entry<String, CompoundTag> entry : legacyData.entrySet()) {
             tag.put(entry.getKey(), entry.getValue());
         }
         return tag;
     }
 
+    /**
+     * One bucket of players, saved as its own file.
+     *
+     * Handlers of open (or recently opened) menus stay live in {@link #live} and are only
+     * serialized into {@link #playerData} when the shard is saved or the player is evicted;
+     * opening and closing a menu costs no NBT work.
+     *
+     * The shard also keeps a small cleanup index: which players were touched since the last
+     * cleanup (and when), and for every live handler how many of its slots are occupied.
+     * Cleanup runs as part of {@link #save}, only visits the touched players and never
+     * deserializes a stored handler.
+     */
+    static final class Shard extends SavedData {
+        // Each player UUID → CompoundTag with their menus
+        final Map<String, CompoundTag> playerData = new HashMap<>();
+        // Player UUID → layout → live handler (write-back cache)
+        final Map<String, Map<String, LiveHandler>> live = new HashMap<>();
+        // Players whose menus may have become empty since the last cleanup
+        final Set<String> touched = new HashSet<>();
+        // Player UUID → last time (epoch millis) one of their menus changed; saved as LAST_TOUCHED_TAG
+        final Map<String, Long> lastTouched = new HashMap<>();
+
+        static Shard load(CompoundTag tag, HolderLookup.Provider provider) {
+            Shard shard = new Shard();
+            for (String key : tag.getAllKeys()) {
+                CompoundTag playerTag = tag.getCompound(key);
+                shard.playerData.put(key, playerTag);
+                if (playerTag.contains(LAST_TOUCHED_TAG)) shard.lastTouched.put(key, playerTag.getLong(LAST_TOUCHED_TAG));
+            }
+            // Nothing is known about freshly loaded players → check each once on the next cleanup
+            shard.touched.addAll(shard.playerData.keySet());
+            return shard;
+        }
+
+        /**
+         * Storage only calls this for a dirty shard, so empty menus are pruned once per
+         * actual write (autosave, /save-all, the final save on stop) right before serializing.
+         */
+        @Override
+        public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+            flush(provider);
+            CleanupStats stats = prune();
+            if (stats.removedAnything()) {
+                CatocraftMod.LOGGER.info("[DynamicMenu] Pruned {} menu(s) and {} player(s) of {} checked before saving, reclaimed {} bytes",
+                        stats.menusRemoved(), stats.playersRemoved(), stats.playersChecked(), stats.bytesReclaimed());
+            }
+            for (Map.Entry<String, CompoundTag> entry : playerData.entrySet()) {
+                tag.put(entry.getKey(), entry.getValue());
+            }
+            return tag;
+        }
+
+        void touch(String uuid) {
+            touched.add(uuid);
+            lastTouched.put(uuid, System.currentTimeMillis());
+        }
+
+        /** Handler that marks itself (and its shard) dirty instead of being re-serialized on every close. */
+        final class LiveHandler extends ItemStackHandler {
+            private final String uuid;
+            private final BitSet occupied = new BitSet();
+            private boolean dirty;
+
+            LiveHandler(String uuid, int size) {
+                super(size);
+                this.uuid = uuid;
+            }
+
+            @Override
+            protected void onLoad() {
+                occupied.clear();
+                for (int i = 0; i < getSlots(); i++) {
+                    if (!getStackInSlot(i).isEmpty()) occupied.set(i);
+                }
+            }
+
+            @Override
+            protected void onContentsChanged(int slot) {
+                occupied.set(slot, !getStackInSlot(slot).isEmpty());
+                markDirty();
+            }
+
+            void markDirty() {
+                dirty = true;
+                setDirty();
+                touch(uuid);
+            }
+
+            boolean isEmpty() {
+                return occupied.isEmpty();
+            }
+        }
+
+        /** Writes dirty live handlers of one player back into their tag. */
+        void flush(String uuid, HolderLookup.Provider provider) {
+            Map<String, LiveHandler> handlers = live.get(uuid);
+            if (handlers == null) return;
+
+            CompoundTag playerTag = null;
+            CompoundTag menus = null;
+            for (Map.Entry<String, LiveHandler> entry : handlers.entrySet()) {
+                LiveHandler handler = entry.getValue();
+                if (!handler.dirty) continue;
+                if (playerTag == null) {
+                    playerTag = playerData.computeIfAbsent(uuid, k -> new CompoundTag());
+                    menus = playerTag.getCompound(MENUS_TAG);
+                }
+                menus.put(entry.getKey(), handler.serializeNBT(provider));
+                handler.dirty = false;
+            }
+            if (playerTag != null) {
+                playerTag.put(MENUS_TAG, menus);
+                Long time = lastTouched.get(uuid);
+                if (time != null) playerTag.putLong(LAST_TOUCHED_TAG, time);
+            }
+        }
+
+        void flush(HolderLookup.Provider provider) {
+            for (String uuid : live.keySet()) flush(uuid, provider);
+        }
+
+        /**
+         * Removes any empty menu inventories or stale player entries of the touched players.
+         * Emptiness comes from the live handler's slot index, or for a stored handler from its
+         * "Items" list, which only ever holds non-empty stacks. Expects the live handlers flushed.
+         */
+        CleanupStats prune() {
+            int checked = 0, menusRemoved = 0, playersRemoved = 0;
+            long bytes = 0;
+
+            for (String uuid : touched) {
+                CompoundTag playerTag = playerData.get(uuid);
+                if (playerTag == null) continue;
+                checked++;
+
+                Map<String, LiveHandler> handlers = live.getOrDefault(uuid, Map.of());
+                CompoundTag menus = playerTag.getCompound(MENUS_TAG);
+
+                // remove empty menu inventories
+                Iterator<String> menuKeys = menus.getAllKeys().iterator();
+                while (menuKeys.hasNext()) {
+                    String key = menuKeys.next();
+                    if (isEmptyMenu(handlers, menus, key)) {
+                        bytes += menus.getCompound(key).sizeInBytes();
+                        menuKeys.remove(); // safely remove while iterating
+                        menusRemoved++;
+                    }
+                }
+
+                // if player has no menus left, drop the player entirely
+                if (menus.isEmpty()) {
+                    bytes += playerTag.sizeInBytes();
+                    playerData.remove(uuid);
+                    lastTouched.remove(uuid);
+                    playersRemoved++;
+                } else {
+                    playerTag.put(MENUS_TAG, menus);
+                }
+            }
+            touched.clear();
+
+            return new CleanupStats(checked, menusRemoved, playersRemoved, bytes);
+        }
+    }
+
     // ────────────────────────────────────────────────
     // Access helpers
     // ────────────────────────────────────────────────
     public static DynamicMenuWorldData get(ServerLevel level) {
-        return level.getDataStorage().computeIfAbsent(
+        DynamicMenuWorldData data = level.getDataStorage().computeIfAbsent(
                 new SavedData.Factory<>(
                         DynamicMenuWorldData::new,      // create new
                         DynamicMenuWorldData::load      // load from NBT
                 ),
                 FILE_ID
         );
+        if (data.storage == null) {
+            data.storage = level.getDataStorage();
+            data.migrateLegacy();
+        }
+        return data;
     }
 
-    public void savePlayer(String uuid, CompoundTag data) {
-        playerData.put(uuid, data);
+    static int bucketOf(String uuid) {
+        return Math.floorMod(uuid.hashCode(), BUCKETS);
+    }
+
+    private static String shardId(int bucket) {
+        return String.format(Locale.ROOT, "%s_%02d", FILE_ID, bucket);
+    }
+
+    /** Loads (or creates) the shard on first use. */
+    Shard shard(int bucket) {
+        Shard shard = shards[bucket];
+        if (shard == null) {
+            shard = storage.computeIfAbsent(new SavedData.Factory<>(Shard::new, Shard::load), shardId(bucket));
+            shards[bucket] = shard;
+        }
+        return shard;
+    }
+
+    private Shard shardOf(String uuid) {
+        return shard(bucketOf(uuid));
+    }
+
+    /** Moves players from the old single file into their shards (once). */
+    private void migrateLegacy() {
+        if (legacyData.isEmpty()) return;
+
+        for (Map.Entry<String, CompoundTag> entry : legacyData.entrySet()) {
+            Shard shard = shardOf(entry.getKey());
+            shard.playerData.put(entry.getKey(), entry.getValue());
+            shard.touched.add(entry.getKey());
+            shard.setDirty();
+        }
+        CatocraftMod.LOGGER.info("[DynamicMenu] Migrated {} player(s) into {} menu data shards.", legacyData.size(), BUCKETS);
+        legacyData.clear();
         setDirty();
     }
 
+    public void savePlayer(String uuid, CompoundTag data) {
+        Shard shard = shardOf(uuid);
+        shard.playerData.put(uuid, data);
+        shard.touch(uuid);
+        shard.setDirty();
+    }
+
     public CompoundTag getPlayer(String uuid) {
-        return playerData.getOrDefault(uuid, new CompoundTag());
+        return shardOf(uuid).playerData.getOrDefault(uuid, new CompoundTag());
+    }
+
+    // ────────────────────────────────────────────────
+    // Live handlers (see Shard)
+    // ────────────────────────────────────────────────
+    /**
+     * Returns the cached handler for (player, layout), deserializing it only on first use.
+     * A new handler is marked dirty so the (empty) inventory gets persisted.
+     */
+    public ItemStackHandler getHandler(String uuid, String layoutName, int size, HolderLookup.Provider provider) {
+        Shard shard = shardOf(uuid);
+        Map<String, Shard.LiveHandler> handlers = shard.live.computeIfAbsent(uuid, k -> new HashMap<>());
+        Shard.LiveHandler handler = handlers.get(layoutName);
+        if (handler != null) return handler;
+
+        handler = shard.new LiveHandler(uuid, size);
+        CompoundTag menus = getPlayer(uuid).getCompound(MENUS_TAG);
+        if (menus.contains(layoutName)) handler.deserializeNBT(provider, menus.getCompound(layoutName));
+        else handler.markDirty();
+
+        handlers.put(layoutName, handler);
+        return handler;
+    }
+
+    /**
+     * Records that a handler was used (e.g. its menu closed). Live handlers are just marked
+     * dirty; any other handler is serialized right away.
+     */
+    public void storeHandler(String uuid, String layoutName, ItemStackHandler handler, HolderLookup.Provider provider) {
+        Shard shard = shardOf(uuid);
+        Map<String, Shard.LiveHandler> handlers = shard.live.get(uuid);
+        if (handlers != null && handlers.get(layoutName) == handler) {
+            ((Shard.LiveHandler) handler).markDirty();
+            return;
+        }
+
+        CompoundTag playerTag = getPlayer(uuid);
+        CompoundTag menus = playerTag.getCompound(MENUS_TAG);
+        menus.put(layoutName, handler.serializeNBT(provider));
+        playerTag.put(MENUS_TAG, menus);
+        savePlayer(uuid, playerTag);
+    }
+
+    /** Writes back and drops a player's live handlers (logout). */
+    public void evictPlayer(String uuid, HolderLookup.Provider provider) {
+        Shard shard = shards[bucketOf(uuid)];
+        if (shard == null || !shard.live.containsKey(uuid)) return;
+        shard.flush(uuid, provider);
+        shard.live.remove(uuid);
+    }
+
+    /** Writes back every dirty live handler so {@link Shard#playerData} is current. */
+    public void flushLive(HolderLookup.Provider provider) {
+        for (Shard shard : shards) {
+            if (shard != null) shard.flush(provider);
+        }
     }
 
     // ────────────────────────────────────────────────
     // Cleanup utilities
     // ────────────────────────────────────────────────
+    /** What a cleanup pass looked at and removed; {@code bytesReclaimed} is the NBT size of the removed tags. */
+    public record CleanupStats(int playersChecked, int menusRemoved, int playersRemoved, long bytesReclaimed) {
+        public boolean removedAnything() {
+            return menusRemoved > 0 || playersRemoved > 0;
+        }
+    }
+
+    /** Live handler slot index if the menu is live, otherwise its stored "Items" list (non-empty stacks only). */
+    static boolean isEmptyMenu(Map<String, Shard.LiveHandler> handlers, CompoundTag menus, String key) {
+        Shard.LiveHandler handler = handlers.get(key);
+        return handler != null ? handler.isEmpty() : isEmptyMenu(menus.getCompound(key));
+    }
+
+    static boolean isEmptyMenu(CompoundTag menuTag) {
+        return menuTag.getList("Items", Tag.TAG_COMPOUND).isEmpty();
+    }
+
     /**
-     * Removes any empty menu inventories or stale player entries.
-     * Call this occasionally (e.g. on world save or server stop).
+     * Removes the given menus (player UUID → layouts), re-checking each against the current
+     * state: a menu that is gone or no longer empty since it was picked is kept.
      */
-    public void cleanup(HolderLookup.Provider provider) {
-        boolean changed = false;
-        Iterator<Map.Entry<String, CompoundTag>> playerIter = playerData.entrySet().iterator();
-
-        while (playerIter.hasNext()) {
-            Map.Entry<String, CompoundTag> entry = playerIter.next();
-            String playerId = entry.getKey();
-            CompoundTag playerTag = entry.getValue();
-
-            CompoundTag menus = playerTag.getCompound("CatoDynamicMenus");
-
-            // remove empty menu inventories
-            Iterator<String> menuKeys = menus.getAllKeys().iterator();
-            while (menuKeys.hasNext()) {
-                String key = menuKeys.next();
-                CompoundTag menuTag = menus.getCompound(key);
-                var handler = new net.neoforged.neoforge.items.ItemStackHandler(1);
-                handler.deserializeNBT(provider, menuTag);
-
-                boolean empty = true;
-                for (int i = 0; i < handler.getSlots(); i++) {
-                    if (!handler.getStackInSlot(i).isEmpty()) {
-                        empty = false;
-                        break;
-                    }
-                }
+    public CleanupStats removeEmpty(Map<String, ? extends Collection<String>> removals, HolderLookup.Provider provider) {
+        int checked = 0, menusRemoved = 0, playersRemoved = 0;
+        long bytes = 0;
 
-                if (empty) {
-                    menuKeys.remove(); // safely remove while iterating
-                    changed = true;
-                }
+        for (Map.Entry<String, ? extends Collection<String>> entry : removals.entrySet()) {
+            String uuid = entry.getKey();
+            Shard shard = shardOf(uuid);
+            shard.flush(uuid, provider);
+            CompoundTag playerTag = shard.playerData.get(uuid);
+            if (playerTag == null) continue;
+            checked++;
+
+            Map<String, Shard.LiveHandler> handlers = shard.live.getOrDefault(uuid, Map.of());
+            CompoundTag menus = playerTag.getCompound(MENUS_TAG);
+            for (String key : entry.getValue()) {
+                if (!menus.contains(key) || !isEmptyMenu(handlers, menus, key)) continue;
+                bytes += menus.getCompound(key).sizeInBytes();
+                menus.remove(key);
+                menusRemoved++;
             }
 
-            // if player has no menus left, drop the player entirely
             if (menus.isEmpty()) {
-                playerIter.remove();
-                changed = true;
+                bytes += playerTag.sizeInBytes();
+                shard.playerData.remove(uuid);
+                shard.lastTouched.remove(uuid);
+                playersRemoved++;
             } else {
-                playerTag.put("CatoDynamicMenus", menus);
-                playerData.put(playerId, playerTag);
+                playerTag.put(MENUS_TAG, menus);
             }
+            shard.setDirty();
         }
-
-        if (changed) setDirty();
+        return new CleanupStats(checked, menusRemoved, playersRemoved, bytes);
     }
 
     // ────────────────────────────────────────────────
     // Diagnostic access (for /cleandynamicmenus)
     // ────────────────────────────────────────────────
-    public CompoundTag getDataTag() {
-        CompoundTag out = new CompoundTag();
-        for (Map.Entry<String, CompoundTag> e : playerData.entrySet()) {
-            out.put(e.getKey(), e.getValue());
+    /**
+     * Detached copy of one loaded shard's players (its live handlers written back first), or
+     * {@code null} if the shard was never loaded — its saved file is then current and can be
+     * read with {@link #readSavedShard} instead. The copy is safe to read off the server thread.
+     */
+    @Nullable
+    Map<String, CompoundTag> snapshotShard(int bucket, HolderLookup.Provider provider) {
+        Shard shard = shards[bucket];
+        if (shard == null) return null;
+        shard.flush(provider);
+        Map<String, CompoundTag> out = new HashMap<>(shard.playerData.size());
+        for (Map.Entry<String, CompoundTag> e : shard.playerData.entrySet()) {
+            out.put(e.getKey(), e.getValue().copy());
         }
         return out;
     }
-}
\ No newline at end of file
+
+    /** Reads a shard's saved file without loading the shard; empty if it was never written. Any thread. */
+    static Map<String, CompoundTag> readSavedShard(Path dataFolder, int bucket) throws IOException {
+        Path file = dataFolder.resolve(shardId(bucket) + ".dat");
+        if (!Files.exists(file)) return Map.of();
+        CompoundTag data = NbtIo.readCompressed(file, NbtAccounter.unlimitedHeap()).getCompound("data");
+        Map<String, CompoundTag> out = new HashMap<>(data.size());
+        for (String key : data.getAllKeys()) out.put(key, data.getCompound(key));
+        return out;
+    }
+
+    /** Folder the level's SavedData files (and so the shards) are written to. */
+    static Path dataFolder(ServerLevel level) {
+        return DimensionType.getStorageFolder(level.dimension(), level.getServer().getWorldPath(LevelResource.ROOT))
+                .resolve("data");
+    }
+}
@@ -0,0 +1,43 @@
+package net.chriskatze.catocraftmod.mixin;
+
+import net.chriskatze.catocraftmod.combat.ElementalStats;
+import net.chriskatze.catocraftmod.interfaces.ElementalStatsCache;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeMap;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Caches the elemental power/resist vector per attribute map.
+ * Every base value or modifier change ends up in {@code onAttributeModified},
+ * which marks the vector stale; it is recomputed on the next read.
+ */
+@Mixin(AttributeMap.class)
+public class AttributeMapElementalCacheMixin implements ElementalStatsCache {
+
+    @Unique
+    private final float[] catocraft$elementalStats = new float[ElementalStats.SIZE];
+    @Unique
+    private boolean catocraft$elementalDirty = true;
+    @Unique
+    private int catocraft$elementalGeneration = -1;
+
+    @Inject(method = "onAttributeModified", at = @At("HEAD"))
+    private void catocraft$markElementalDirty(AttributeInstance instance, CallbackInfo ci) {
+        catocraft$elementalDirty = true;
+    }
+
+    @Override
+    public float[] catocraft$getElementalStats() {
+        int generation = ElementalStats.generation();
+        if (catocraft$elementalDirty || catocraft$elementalGeneration != generation) {
+            catocraft$elementalDirty = false;
+            catocraft$elementalGeneration = generation;
+            ElementalStats.compute((AttributeMap) (Object) this, catocraft$elementalStats);
+        }
+        return catocraft$elementalStats;
+    }
+}
@@ -0,0 +1,26 @@
+package net.chriskatze.catocraftmod.mixin;
+
+import com.mojang.authlib.GameProfile;
+import net.chriskatze.catocraftmod.capability.EquipmentDataHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerLoginPacketListenerImpl;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerLoginPacketListenerImpl.class)
+public abstract class ServerLoginEquipmentPrefetchMixin {
+
+    @Shadow @Final MinecraftServer server;
+
+    // The UUID is known once the profile is verified → start reading equipment while the login continues
+    @Inject(method = "startClientVerification", at = @At("TAIL"))
+    private void prefetchEquipment(GameProfile profile, CallbackInfo ci) {
+        if (profile != null && profile.getId() != null) {
+            EquipmentDataHandler.prefetch(server, profile.getId(), profile.getName());
+        }
+    }
+}
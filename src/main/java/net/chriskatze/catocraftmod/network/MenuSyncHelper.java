@@ -1,21 +1,27 @@
 package net.chriskatze.catocraftmod.network;
 
 import net.chriskatze.catocraftmod.CatocraftMod;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
 import net.chriskatze.catocraftmod.capability.EquipmentCapabilityHandler;
+import net.chriskatze.catocraftmod.capability.EquipmentSnapshot;
 import net.chriskatze.catocraftmod.capability.PlayerEquipmentCapability;
 import net.chriskatze.catocraftmod.menu.layout.EquipmentGroup;
 import net.minecraft.client.Minecraft;
-import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
 import net.neoforged.neoforge.network.PacketDistributor;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -23,26 +29,102 @@ import java.util.UUID;
  * 📡 MenuSyncHelper — handles server↔client sync for dynamic menus.
  *
  * Replaces old EquipmentSyncHelper.
- * Provides both full and per-group diff-based sync.
+ * Provides both full and delta-based sync:
+ *  - Full sync: whole capability content as a binary payload (group ids from a per-client
+ *    group table, varint slots, stacks via ItemStack.OPTIONAL_STREAM_CODEC),
+ *    only on login, load or layout reload.
+ *  - Delta sync: only the (group, slot, stack) tuples that changed since the last sync.
  */
 public final class MenuSyncHelper {
 
     private MenuSyncHelper() {}
 
-    // Cache last sync hashes for optimization
-    private static final Map<UUID, Map<String, Integer>> LAST_SYNC_HASHES = new HashMap<>();
-    private static final Map<UUID, Integer> LAST_FULL_HASHES = new HashMap<>();
+    // Content version of the last full sync per player (see PlayerEquipmentCapability#getContentVersion)
+    private static final Map<UUID, Long> LAST_FULL_VERSIONS = new HashMap<>();
+
+    // ────────────────────────────────────────────────
+    // GROUP ID TABLE (Server → Client)
+    // ────────────────────────────────────────────────
+
+    /**
+     * Assigns every group key a small id (its position in {@code keys}) for {@link FullSyncPayload}.
+     * Sent on join and again whenever the server's groups change; a full sync carries the
+     * {@code version} it was encoded against.
+     */
+    public record GroupTablePayload(int version, List<String> keys) implements CustomPacketPayload {
+        public static final Type<GroupTablePayload> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath(CatocraftMod.MOD_ID, "menu_group_table"));
+
+        public static final StreamCodec<FriendlyByteBuf, GroupTablePayload> STREAM_CODEC =
+                StreamCodec.composite(
+                        ByteBufCodecs.VAR_INT, GroupTablePayload::version,
+                        ByteBufCodecs.STRING_UTF8.apply(ByteBufCodecs.list()), GroupTablePayload::keys,
+                        GroupTablePayload::new
+                );
+
+        @Override
+        public Type<? extends CustomPacketPayload> type() {
+            return TYPE;
+        }
+    }
+
+    // Server side: current table (rebuilt when the registered groups change) and what each player has
+    private static List<String> groupTable = List.of();
+    private static Map<String, Integer> groupIds = Map.of();
+    private static int groupTableVersion;
+    private static final Map<UUID, Integer> SENT_TABLE_VERSIONS = new HashMap<>();
+
+    // Client side: last table received (main thread only)
+    private static List<String> clientGroupTable = List.of();
+    private static int clientGroupTableVersion = -1;
 
     // ────────────────────────────────────────────────
     // FULL SYNC PAYLOAD (Server → Client)
     // ────────────────────────────────────────────────
-    public record FullSyncPayload(CompoundTag tag) implements CustomPacketPayload {
+
+    /**
+     * One group of a full sync: table id, inventory size and the occupied slots
+     * ({@code slots[i]} holds {@code stacks[i]}), as in {@link EquipmentSnapshot.Group}.
+     */
+    public record GroupContent(int id, int size, int[] slots, ItemStack[] stacks) {
+        public static final StreamCodec<RegistryFriendlyByteBuf, GroupContent> STREAM_CODEC =
+                StreamCodec.of(GroupContent::write, GroupContent::read);
+
+        private static void write(RegistryFriendlyByteBuf buf, GroupContent group) {
+            buf.writeVarInt(group.id());
+            buf.writeVarInt(group.size());
+            buf.writeVarInt(group.slots().length);
+            for (int i = 0; i < group.slots().length; i++) {
+                buf.writeVarInt(group.slots()[i]);
+                ItemStack.OPTIONAL_STREAM_CODEC.encode(buf, group.stacks()[i]);
+            }
+        }
+
+        private static GroupContent read(RegistryFriendlyByteBuf buf) {
+            int id = buf.readVarInt();
+            int size = buf.readVarInt();
+            int count = buf.readVarInt();
+            if (count < 0 || count > size) throw new DecoderException("Invalid slot count " + count + " for group size " + size);
+
+            int[] slots = new int[count];
+            ItemStack[] stacks = new ItemStack[count];
+            for (int i = 0; i < count; i++) {
+                slots[i] = buf.readVarInt();
+                stacks[i] = ItemStack.OPTIONAL_STREAM_CODEC.decode(buf);
+            }
+            return new GroupContent(id, size, slots, stacks);
+        }
+    }
+
+    /** Whole equipment content; group ids refer to the {@link GroupTablePayload} with {@code tableVersion}. */
+    public record FullSyncPayload(int tableVersion, List<GroupContent> groups) implements CustomPacketPayload {
         public static final Type<FullSyncPayload> TYPE =
                 new Type<>(ResourceLocation.fromNamespaceAndPath(CatocraftMod.MOD_ID, "menu_full_sync"));
 
-        public static final StreamCodec<FriendlyByteBuf, FullSyncPayload> STREAM_CODEC =
+        public static final StreamCodec<RegistryFriendlyByteBuf, FullSyncPayload> STREAM_CODEC =
                 StreamCodec.composite(
-                        ByteBufCodecs.COMPOUND_TAG, FullSyncPayload::tag,
+                        ByteBufCodecs.VAR_INT, FullSyncPayload::tableVersion,
+                        GroupContent.STREAM_CODEC.apply(ByteBufCodecs.list()), FullSyncPayload::groups,
                         FullSyncPayload::new
                 );
 
@@ -52,9 +134,44 @@ public final class MenuSyncHelper {
         }
     }
 
+    // ────────────────────────────────────────────────
+    // DELTA SYNC PAYLOAD (Server → Client)
+    // ────────────────────────────────────────────────
+
+    /** One changed slot; an empty stack means the slot was cleared. */
+    public record SlotDelta(String groupKey, int slot, ItemStack stack) {
+        public static final StreamCodec<RegistryFriendlyByteBuf, SlotDelta> STREAM_CODEC =
+                StreamCodec.composite(
+                        ByteBufCodecs.STRING_UTF8, SlotDelta::groupKey,
+                        ByteBufCodecs.VAR_INT, SlotDelta::slot,
+                        ItemStack.OPTIONAL_STREAM_CODEC, SlotDelta::stack,
+                        SlotDelta::new
+                );
+    }
+
+    public record DeltaSyncPayload(List<SlotDelta> changes) implements CustomPacketPayload {
+        public static final Type<DeltaSyncPayload> TYPE =
+                new Type<>(ResourceLocation.fromNamespaceAndPath(CatocraftMod.MOD_ID, "menu_delta_sync"));
+
+        public static final StreamCodec<RegistryFriendlyByteBuf, DeltaSyncPayload> STREAM_CODEC =
+                StreamCodec.composite(
+                        SlotDelta.STREAM_CODEC.apply(ByteBufCodecs.list()), DeltaSyncPayload::changes,
+                        DeltaSyncPayload::new
+                );
+
+        @Override
+        public Type<? extends CustomPacketPayload> type() {
+            return TYPE;
+        }
+    }
+
     // constants for registration
+    public static final CustomPacketPayload.Type<GroupTablePayload> GROUP_TABLE_TYPE = GroupTablePayload.TYPE;
+    public static final StreamCodec<FriendlyByteBuf, GroupTablePayload> GROUP_TABLE_CODEC = GroupTablePayload.STREAM_CODEC;
     public static final CustomPacketPayload.Type<FullSyncPayload> FULL_SYNC_TYPE = FullSyncPayload.TYPE;
-    public static final StreamCodec<FriendlyByteBuf, FullSyncPayload> FULL_SYNC_CODEC = FullSyncPayload.STREAM_CODEC;
+    public static final StreamCodec<RegistryFriendlyByteBuf, FullSyncPayload> FULL_SYNC_CODEC = FullSyncPayload.STREAM_CODEC;
+    public static final CustomPacketPayload.Type<DeltaSyncPayload> DELTA_SYNC_TYPE = DeltaSyncPayload.TYPE;
+    public static final StreamCodec<RegistryFriendlyByteBuf, DeltaSyncPayload> DELTA_SYNC_CODEC = DeltaSyncPayload.STREAM_CODEC;
 
     // ────────────────────────────────────────────────
     // SERVER → CLIENT  full sync
@@ -65,14 +182,13 @@ public final class MenuSyncHelper {
         PlayerEquipmentCapability cap = player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
         if (cap == null) return;
 
-        CompoundTag fullNBT = cap.serializeNBT(player.registryAccess());
-        int currentHash = fullNBT.hashCode();
-        Integer lastHash = LAST_FULL_HASHES.get(player.getUUID());
+        long currentVersion = cap.getContentVersion();
+        Long lastVersion = LAST_FULL_VERSIONS.get(player.getUUID());
 
-        if (lastHash != null && lastHash == currentHash) return; // no change
+        if (lastVersion != null && lastVersion == currentVersion) return; // no change
 
-        LAST_FULL_HASHES.put(player.getUUID(), currentHash);
-        PacketDistributor.sendToPlayer(player, new FullSyncPayload(fullNBT));
+        LAST_FULL_VERSIONS.put(player.getUUID(), currentVersion);
+        sendFullSync(player, cap);
 
         CatocraftMod.LOGGER.debug("[MenuSyncHelper] Sent full sync to {}", player.getGameProfile().getName());
     }
@@ -88,78 +204,211 @@ public final class MenuSyncHelper {
             var cap = mc.player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
             if (cap == null) return;
 
+            if (msg.tableVersion() != clientGroupTableVersion) {
+                CatocraftMod.LOGGER.warn("[MenuSyncHelper] Ignored full sync for group table v{} (have v{})",
+                        msg.tableVersion(), clientGroupTableVersion);
+                return;
+            }
+
             try {
-                cap.deserializeNBT(mc.player.registryAccess(), msg.tag());
-                cap.initializeGroupsIfMissing();
+                cap.applySnapshot(toSnapshot(msg));
+                cap.ensureLayoutCurrent();
                 cap.applyAllAttributes();
 
-                CatocraftMod.LOGGER.debug("[MenuSyncHelper] Applied full sync ({} groups)", cap.getAllGroups().size());
+                CatocraftMod.LOGGER.debug("[MenuSyncHelper] Applied full sync ({} groups)", cap.getGroupCount());
             } catch (Exception e) {
                 CatocraftMod.LOGGER.error("[MenuSyncHelper] Failed to apply sync: {}", e.toString());
             }
         });
     }
 
+    public static void handleGroupTable(GroupTablePayload msg, IPayloadContext ctx) {
+        ctx.enqueueWork(() -> {
+            clientGroupTable = List.copyOf(msg.keys());
+            clientGroupTableVersion = msg.version();
+            CatocraftMod.LOGGER.debug("[MenuSyncHelper] Received group table v{} ({} groups)", msg.version(), msg.keys().size());
+        });
+    }
+
+    /** Resolves table ids back to group keys; unknown ids are dropped. */
+    private static EquipmentSnapshot toSnapshot(FullSyncPayload msg) {
+        List<EquipmentSnapshot.Group> groups = new ArrayList<>(msg.groups().size());
+        for (GroupContent content : msg.groups()) {
+            if (content.id() < 0 || content.id() >= clientGroupTable.size()) continue;
+
+            // In singleplayer the payload is not encoded, so these are the server's snapshot stacks
+            ItemStack[] stacks = new ItemStack[content.stacks().length];
+            for (int i = 0; i < stacks.length; i++) stacks[i] = content.stacks()[i].copy();
+            groups.add(new EquipmentSnapshot.Group(clientGroupTable.get(content.id()), content.size(), content.slots().clone(), stacks));
+        }
+        return new EquipmentSnapshot(groups);
+    }
+
     // ────────────────────────────────────────────────
-    // PARTIAL GROUP SYNC (optional)
+    // DELTA SYNC (Server → Client)
     // ────────────────────────────────────────────────
-    public static boolean syncGroupToClient(ServerPlayer player, EquipmentGroup group) {
+
+    /**
+     * Sends only the slots that changed since the last sync.
+     * Does nothing (no packet at all) when nothing changed.
+     */
+    public static boolean syncDeltaToClient(ServerPlayer player) {
         if (player == null || player.level().isClientSide) return false;
 
         PlayerEquipmentCapability cap = player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
         if (cap == null) return false;
 
-        var handler = cap.getAllGroups().get(group);
-        if (handler == null) return false;
-
-        CompoundTag groupNBT = handler.serializeNBT(player.registryAccess());
-        int hash = groupNBT.hashCode();
-        var perPlayer = LAST_SYNC_HASHES.computeIfAbsent(player.getUUID(), id -> new HashMap<>());
+        // A pending structural change can't be expressed as slot deltas
+        if (cap.isFullSyncPending()) {
+            forceSyncToClient(player);
+            return true;
+        }
 
-        if (hash == perPlayer.getOrDefault(group.getKey(), -1)) return false;
-        perPlayer.put(group.getKey(), hash);
+        List<SlotDelta> changes = cap.drainSlotDeltas();
+        if (changes.isEmpty()) return false;
 
-        PacketDistributor.sendToPlayer(player, new MenuSlotUpdatePacket(group.getKey(), 0, null));
+        // Full state changed → the last full sync's version no longer describes the client
+        LAST_FULL_VERSIONS.remove(player.getUUID());
+        PacketDistributor.sendToPlayer(player, new DeltaSyncPayload(changes));
 
+        CatocraftMod.LOGGER.debug("[MenuSyncHelper] Sent {} slot delta(s) to {}", changes.size(), player.getGameProfile().getName());
         return true;
     }
 
+    /** Kept for callers that sync after editing a single group; sends any pending slot deltas. */
+    public static boolean syncGroupToClient(ServerPlayer player, EquipmentGroup group) {
+        return syncDeltaToClient(player);
+    }
+
+    // ────────────────────────────────────────────────
+    // CLIENT → HANDLER (receives DeltaSyncPayload)
+    // ────────────────────────────────────────────────
+    public static void handleDeltaSync(DeltaSyncPayload msg, IPayloadContext ctx) {
+        ctx.enqueueWork(() -> {
+            Minecraft mc = Minecraft.getInstance();
+            if (mc.player == null) return;
+
+            var cap = mc.player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
+            if (cap == null) return;
+
+            for (SlotDelta delta : msg.changes()) {
+                EquipmentGroup group = EquipmentGroup.fromKey(delta.groupKey());
+                if (group == null) continue;
+                cap.applyRemoteSlot(group, delta.slot(), delta.stack());
+            }
+
+            CatocraftMod.LOGGER.debug("[MenuSyncHelper] Applied {} slot delta(s)", msg.changes().size());
+        });
+    }
+
     // ────────────────────────────────────────────────
 // FULL SYNC SUPPORT (restored from EquipmentSyncHelper)
 // ────────────────────────────────────────────────
 
-    /** Sends a full capability sync if the data has changed since last update. */
+    /** Sends a full capability sync if the content has changed since the last full sync. */
     public static void syncToClient(ServerPlayer player) {
         if (player == null || player.level().isClientSide) return;
 
         PlayerEquipmentCapability cap = player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
         if (cap == null) return;
 
-        CompoundTag fullNBT = cap.serializeNBT(player.registryAccess());
-        int currentFullHash = fullNBT.hashCode();
-        Integer lastHash = LAST_FULL_HASHES.get(player.getUUID());
+        long currentVersion = cap.getContentVersion();
+        Long lastVersion = LAST_FULL_VERSIONS.get(player.getUUID());
 
         // Skip if unchanged
-        if (lastHash != null && lastHash == currentFullHash) return;
+        if (lastVersion != null && lastVersion == currentVersion) return;
 
-        LAST_FULL_HASHES.put(player.getUUID(), currentFullHash);
-        PacketDistributor.sendToPlayer(player, new FullSyncPayload(fullNBT));
+        LAST_FULL_VERSIONS.put(player.getUUID(), currentVersion);
+        sendFullSync(player, cap);
 
         CatocraftMod.LOGGER.debug("[MenuSync] Full sync sent to {} ({} groups)",
-                player.getGameProfile().getName(), cap.getAllGroups().size());
+                player.getGameProfile().getName(), cap.getGroupCount());
     }
 
-    /** Forces a full sync regardless of hash or diff state. */
+    /** Forces a full sync regardless of content version or diff state. */
     public static void forceSyncToClient(ServerPlayer player) {
         if (player == null || player.level().isClientSide) return;
 
         PlayerEquipmentCapability cap = player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
         if (cap == null) return;
 
-        CompoundTag fullNBT = cap.serializeNBT(player.registryAccess());
-        LAST_FULL_HASHES.put(player.getUUID(), fullNBT.hashCode());
-        PacketDistributor.sendToPlayer(player, new FullSyncPayload(fullNBT));
+        LAST_FULL_VERSIONS.put(player.getUUID(), cap.getContentVersion());
+        sendFullSync(player, cap);
 
         CatocraftMod.LOGGER.debug("[MenuSync] Force-synced data to {}", player.getGameProfile().getName());
     }
-}
\ No newline at end of file
+
+    // ────────────────────────────────────────────────
+    // Group table + payload building
+    // ────────────────────────────────────────────────
+
+    /** Forgets what the player's client has received (join / logout), so the next sync starts with a new table. */
+    public static void resetSession(ServerPlayer player) {
+        SENT_TABLE_VERSIONS.remove(player.getUUID());
+        LAST_FULL_VERSIONS.remove(player.getUUID());
+    }
+
+    /** Sends the group table first if this client does not have the current one; packets arrive in order. */
+    private static void sendFullSync(ServerPlayer player, PlayerEquipmentCapability cap) {
+        refreshGroupTable();
+        Integer sent = SENT_TABLE_VERSIONS.get(player.getUUID());
+        if (sent == null || sent != groupTableVersion) {
+            PacketDistributor.sendToPlayer(player, new GroupTablePayload(groupTableVersion, groupTable));
+            SENT_TABLE_VERSIONS.put(player.getUUID(), groupTableVersion);
+        }
+        PacketDistributor.sendToPlayer(player, buildFullSync(cap));
+        cap.markSynced();
+    }
+
+    /** Rebuilds the table (new version) when the registered groups changed, e.g. after a layout reload. */
+    private static void refreshGroupTable() {
+        List<String> keys = EquipmentGroup.all().stream().map(EquipmentGroup::getKey).toList();
+        if (keys.equals(groupTable)) return;
+
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) ids.put(keys.get(i), i);
+        groupTable = keys;
+        groupIds = ids;
+        groupTableVersion++;
+    }
+
+    /** Built from the capability's cached snapshot, so no NBT is produced for the payload. */
+    private static FullSyncPayload buildFullSync(PlayerEquipmentCapability cap) {
+        List<GroupContent> groups = new ArrayList<>();
+        for (EquipmentSnapshot.Group group : cap.snapshot().groups()) {
+            Integer id = groupIds.get(group.key());
+            if (id == null) continue;
+            groups.add(new GroupContent(id, group.size(), group.slots(), group.stacks()));
+        }
+        return new FullSyncPayload(groupTableVersion, groups);
+    }
+
+    // ────────────────────────────────────────────────
+    // Size benchmark (/equipmentdata syncsize)
+    // ────────────────────────────────────────────────
+
+    /** Encoded sizes of one player's full sync: the previous CompoundTag payload, the binary payload and the (one-off) group table. */
+    public record SyncSize(int nbtBytes, int binaryBytes, int tableBytes) {}
+
+    public static SyncSize measureFullSync(ServerPlayer player) {
+        PlayerEquipmentCapability cap = player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
+        if (cap == null) return new SyncSize(0, 0, 0);
+
+        refreshGroupTable();
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(256), player.registryAccess());
+        try {
+            ByteBufCodecs.COMPOUND_TAG.encode(buf, cap.serializeNBT(player.registryAccess()));
+            int nbt = buf.readableBytes();
+
+            buf.clear();
+            FullSyncPayload.STREAM_CODEC.encode(buf, buildFullSync(cap));
+            int binary = buf.readableBytes();
+
+            buf.clear();
+            GroupTablePayload.STREAM_CODEC.encode(buf, new GroupTablePayload(groupTableVersion, groupTable));
+            return new SyncSize(nbt, binary, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -19,17 +19,27 @@ public final class NetworkHandler {
     public static void register(final RegisterPayloadHandlersEvent event) {
         PayloadRegistrar registrar = event
                 .registrar(CatocraftMod.MOD_ID)
-                .versioned("1")
+                .versioned("2")
                 .optional();
 
         // ────────────────────────────────────────────────
         // 🖥️ Server → Client
         // ────────────────────────────────────────────────
+        registrar.playToClient(
+                MenuSyncHelper.GROUP_TABLE_TYPE,
+                MenuSyncHelper.GROUP_TABLE_CODEC,
+                MenuSyncHelper::handleGroupTable
+        );
         registrar.playToClient(
                 MenuSyncHelper.FULL_SYNC_TYPE,
                 MenuSyncHelper.FULL_SYNC_CODEC,
                 MenuSyncHelper::handleFullSync
         );
+        registrar.playToClient(
+                MenuSyncHelper.DELTA_SYNC_TYPE,
+                MenuSyncHelper.DELTA_SYNC_CODEC,
+                MenuSyncHelper::handleDeltaSync
+        );
 
         // (Optional) future: add ClientMenuOpener or partial sync packets here
         // registrar.playToClient(ClientMenuOpener.TYPE, ClientMenuOpener.STREAM_CODEC, ClientMenuOpener::handle);
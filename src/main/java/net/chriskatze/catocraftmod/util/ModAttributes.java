@@ -1,6 +1,7 @@
 package net.chriskatze.catocraftmod.util;
 
 import net.chriskatze.catocraftmod.CatocraftMod;
+import net.chriskatze.catocraftmod.combat.ElementalStats;
 import net.minecraft.client.Minecraft;
 import net.minecraft.core.Holder;
 import net.minecraft.core.HolderGetter;
@@ -140,6 +141,9 @@ public class ModAttributes {
         HEALING_POWER_HOLDER= safeGet.apply(HEALING_POWER);
         MANA_REGEN_HOLDER   = safeGet.apply(MANA_REGEN);
 
+        // Cached elemental vectors may have been computed with unresolved holders
+        ElementalStats.invalidateAll();
+
         CatocraftMod.LOGGER.info(
                 "[ModAttributes] Initialized runtime holders: fire={}, frost={}, arcane={}, healing={}, mana={}",
                 FIRE_POWER_HOLDER != null, FROST_POWER_HOLDER != null, ARCANE_POWER_HOLDER != null,
@@ -0,0 +1,185 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentCodecTest {
+
+    private static final RegistryAccess REGISTRIES = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+
+    private static EquipmentSnapshot sample() {
+        return new EquipmentSnapshot(List.of(
+                new EquipmentSnapshot.Group("ring", 4, new int[]{0, 3},
+                        new ItemStack[]{new ItemStack(Items.DIAMOND, 2), new ItemStack(Items.EMERALD)}),
+                new EquipmentSnapshot.Group("amulet", 1, new int[0], new ItemStack[0])
+        ), 42L);
+    }
+
+    private static void assertSameContent(EquipmentSnapshot expected, EquipmentSnapshot actual) {
+        assertEquals(expected.journalSeq(), actual.journalSeq());
+        assertEquals(expected.groups().size(), actual.groups().size());
+        for (int g = 0; g < expected.groups().size(); g++) {
+            EquipmentSnapshot.Group e = expected.groups().get(g);
+            EquipmentSnapshot.Group a = actual.groups().get(g);
+            assertEquals(e.key(), a.key());
+            assertEquals(e.size(), a.size());
+            assertArrayEquals(e.slots(), a.slots());
+            for (int i = 0; i < e.stacks().length; i++) {
+                assertTrue(ItemStack.matches(e.stacks()[i], a.stacks()[i]), "stack " + i + " of " + e.key());
+            }
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Round trip
+    // ────────────────────────────────────────────────
+
+    @Test
+    void roundTripKeepsGroupsSlotsAndJournalSeq() throws IOException {
+        EquipmentSnapshot snapshot = sample();
+        byte[] data = EquipmentCodec.encode(snapshot, REGISTRIES);
+
+        assertFalse(EquipmentCodec.isLegacy(data));
+        assertEquals(EquipmentCodec.VERSION, EquipmentCodec.verify(data));
+        assertSameContent(snapshot, EquipmentCodec.decode(data, REGISTRIES));
+    }
+
+    @Test
+    void roundTripOfDeflatedBody() throws IOException {
+        // Enough groups to pass the deflate threshold
+        List<EquipmentSnapshot.Group> groups = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            groups.add(new EquipmentSnapshot.Group("group_with_a_fairly_long_key_" + i, 8, new int[]{i % 8},
+                    new ItemStack[]{new ItemStack(Items.GOLD_INGOT, 1 + i % 16)}));
+        }
+        EquipmentSnapshot snapshot = new EquipmentSnapshot(List.copyOf(groups), 7L);
+        byte[] data = EquipmentCodec.encode(snapshot, REGISTRIES);
+
+        assertEquals(1, data[5] & 1, "body should be deflated");
+        assertSameContent(snapshot, EquipmentCodec.decode(data, REGISTRIES));
+    }
+
+    @Test
+    void roundTripOfEmptySnapshot() throws IOException {
+        byte[] data = EquipmentCodec.encode(EquipmentSnapshot.EMPTY, REGISTRIES);
+        assertTrue(EquipmentCodec.decode(data, REGISTRIES).isEmpty());
+    }
+
+    // ────────────────────────────────────────────────
+    // Corruption
+    // ────────────────────────────────────────────────
+
+    @Test
+    void flippedBodyByteFailsChecksum() {
+        byte[] data = EquipmentCodec.encode(sample(), REGISTRIES);
+        data[data.length - 1] ^= 0x5A;
+
+        var e = assertThrows(EquipmentCodec.CorruptDataException.class, () -> EquipmentCodec.decode(data, REGISTRIES));
+        assertTrue(e.getMessage().contains("Checksum"), e.getMessage());
+        assertThrows(EquipmentCodec.CorruptDataException.class, () -> EquipmentCodec.verify(data));
+    }
+
+    @Test
+    void truncatedFileIsRejected() {
+        byte[] data = EquipmentCodec.encode(sample(), REGISTRIES);
+        byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+        assertThrows(EquipmentCodec.CorruptDataException.class, () -> EquipmentCodec.decode(truncated, REGISTRIES));
+    }
+
+    @Test
+    void newerSchemaIsRejected() {
+        byte[] data = EquipmentCodec.encode(sample(), REGISTRIES);
+        data[4] = (byte) (EquipmentCodec.VERSION + 1);
+
+        assertThrows(EquipmentCodec.CorruptDataException.class, () -> EquipmentCodec.verify(data));
+    }
+
+    @Test
+    void garbageIsRejected() {
+        assertThrows(EquipmentCodec.CorruptDataException.class, () -> EquipmentCodec.verify(new byte[]{1, 2, 3}));
+    }
+
+    // ────────────────────────────────────────────────
+    // Legacy NBT migration
+    // ────────────────────────────────────────────────
+
+    private static CompoundTag legacyItem(int slot, String id, int count) {
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("Slot", slot);
+        tag.putString("id", id);
+        tag.putInt("count", count);
+        return tag;
+    }
+
+    private static byte[] legacyFile() throws IOException {
+        ListTag ringItems = new ListTag();
+        ringItems.add(legacyItem(1, "minecraft:diamond", 2));
+        ringItems.add(legacyItem(9, "minecraft:emerald", 1)); // outside Size → dropped
+
+        CompoundTag ringInventory = new CompoundTag();
+        ringInventory.putInt("Size", 4);
+        ringInventory.put("Items", ringItems);
+
+        CompoundTag ring = new CompoundTag();
+        ring.putString("GroupKey", "ring");
+        ring.put("Items", ringInventory);
+
+        ListTag groups = new ListTag();
+        groups.add(ring);
+        CompoundTag root = new CompoundTag();
+        root.put("Groups", groups);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(root, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void legacyNbtIsDetectedAndConverted() throws IOException {
+        byte[] data = legacyFile();
+
+        assertTrue(EquipmentCodec.isLegacy(data));
+        assertEquals(0, EquipmentCodec.verify(data));
+
+        EquipmentSnapshot snapshot = EquipmentCodec.decode(data, REGISTRIES);
+        assertEquals(1, snapshot.groups().size());
+        EquipmentSnapshot.Group ring = snapshot.groups().get(0);
+        assertEquals("ring", ring.key());
+        assertEquals(4, ring.size());
+        assertArrayEquals(new int[]{1}, ring.slots());
+        assertTrue(ItemStack.matches(new ItemStack(Items.DIAMOND, 2), ring.stacks()[0]));
+        assertEquals(0L, snapshot.journalSeq());
+    }
+
+    @Test
+    void legacySnapshotMigratesToCurrentFormat() throws IOException {
+        EquipmentSnapshot legacy = EquipmentCodec.decode(legacyFile(), REGISTRIES);
+        byte[] migrated = EquipmentCodec.encode(legacy, REGISTRIES);
+
+        assertEquals(EquipmentCodec.VERSION, EquipmentCodec.verify(migrated));
+        assertSameContent(legacy, EquipmentCodec.decode(migrated, REGISTRIES));
+    }
+
+    @Test
+    void legacyWithoutGroupsIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(new CompoundTag(), out);
+
+        assertThrows(EquipmentCodec.CorruptDataException.class, () -> EquipmentCodec.verify(out.toByteArray()));
+    }
+}
@@ -0,0 +1,138 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentIOExecutorTest {
+
+    private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final int CAPACITY = 2;
+
+    private EquipmentIOExecutor executor;
+    private final CompletableFuture<Void> gate = new CompletableFuture<>();
+
+    @AfterEach
+    void tearDown() {
+        gate.complete(null);
+        if (executor != null) executor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    /** One stripe whose worker is held by {@link #gate} and whose queue is full. */
+    private void blockedStripe(EquipmentIOConfig.Backpressure policy, long blockTimeoutMillis) throws Exception {
+        executor = new EquipmentIOExecutor(1, CAPACITY, policy, blockTimeoutMillis);
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(PLAYER, () -> {
+            running.countDown();
+            gate.join();
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < CAPACITY; i++) executor.execute(PLAYER, () -> {});
+    }
+
+    /** Resolves once everything submitted so far for the player has run. */
+    private void awaitStripe() throws Exception {
+        CompletableFuture.runAsync(() -> {}, executor.forKey(PLAYER)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Test
+    void overflowKeepsSubmissionOrder() throws Exception {
+        blockedStripe(EquipmentIOConfig.Backpressure.BLOCK, 20);
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            executor.execute(PLAYER, () -> ran.add(n));
+        }
+
+        gate.complete(null);
+        awaitStripe();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) expected.add(i);
+        assertEquals(expected, ran);
+    }
+
+    @Test
+    void blockWaitIsBoundedAndNotRepeatedWhileStalled() throws Exception {
+        blockedStripe(EquipmentIOConfig.Backpressure.BLOCK, 300);
+
+        long start = System.nanoTime();
+        executor.execute(PLAYER, () -> {});
+        long first = millisSince(start);
+        assertTrue(first >= 250, "waited only " + first + " ms");
+
+        start = System.nanoTime();
+        executor.execute(PLAYER, () -> {});
+        long second = millisSince(start);
+        assertTrue(second < 150, "waited again for " + second + " ms on a stalled stripe");
+
+        assertEquals(CAPACITY + 2, executor.queuedTasks());
+    }
+
+    @Test
+    void blockWaiterReturnsOnceTheWorkerTakesTheTask() throws Exception {
+        blockedStripe(EquipmentIOConfig.Backpressure.BLOCK, 10_000);
+
+        CompletableFuture<Long> waited = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            executor.execute(PLAYER, () -> {});
+            return millisSince(start);
+        });
+        Thread.sleep(100);
+        assertFalse(waited.isDone(), "should still be waiting for queue space");
+
+        gate.complete(null);
+        assertTrue(waited.get(5, TimeUnit.SECONDS) < 5_000);
+        assertEquals(1, executor.backpressured());
+    }
+
+    @Test
+    void overflowPolicyNeverWaits() throws Exception {
+        blockedStripe(EquipmentIOConfig.Backpressure.OVERFLOW, 10_000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) executor.execute(PLAYER, () -> {});
+        assertTrue(millisSince(start) < 1_000);
+        assertEquals(5, executor.backpressured());
+    }
+
+    @Test
+    void workerSubmittingToItselfNeverWaits() throws Exception {
+        executor = new EquipmentIOExecutor(1, 1, EquipmentIOConfig.Backpressure.BLOCK, 10_000);
+        CompletableFuture<Long> inner = new CompletableFuture<>();
+        executor.execute(PLAYER, () -> {
+            long start = System.nanoTime();
+            // Queue holds one task → the second submission has to be parked
+            executor.execute(PLAYER, () -> {});
+            executor.execute(PLAYER, () -> {});
+            inner.complete(millisSince(start));
+        });
+
+        assertTrue(inner.get(5, TimeUnit.SECONDS) < 1_000);
+        awaitStripe();
+    }
+
+    @Test
+    void shutdownReportsParkedTasksAsAbandoned() throws Exception {
+        blockedStripe(EquipmentIOConfig.Backpressure.OVERFLOW, 0);
+        executor.execute(PLAYER, () -> {});
+
+        EquipmentIOExecutor.DrainReport report = executor.shutdown(100, TimeUnit.MILLISECONDS);
+        assertFalse(report.clean());
+        assertEquals(CAPACITY + 1, report.abandoned());
+        executor = null;
+    }
+}
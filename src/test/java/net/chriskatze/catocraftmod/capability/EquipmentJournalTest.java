@@ -0,0 +1,202 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentJournalTest {
+
+    private static final RegistryAccess REGISTRIES = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+    private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @TempDir
+    Path directory;
+
+    private EquipmentIOExecutor executor;
+    private EquipmentJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        executor = new EquipmentIOExecutor(1, 16, EquipmentIOConfig.Backpressure.BLOCK, 250);
+        journal = new EquipmentJournal(directory, () -> executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    /** Runs on the player's stripe (where the journal's IO methods must run) and waits for it. */
+    private <T> T onStripe(Supplier<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(PLAYER, () -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    private void onStripe(Runnable task) throws Exception {
+        onStripe(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private Path file() {
+        return directory.resolve(PLAYER + EquipmentJournal.FILE_SUFFIX);
+    }
+
+    private List<EquipmentJournal.Entry> reload(long snapshotSeq) throws Exception {
+        EquipmentJournal fresh = new EquipmentJournal(directory, () -> executor);
+        return onStripe(() -> fresh.load(PLAYER, snapshotSeq, REGISTRIES));
+    }
+
+    // ────────────────────────────────────────────────
+    // Fold
+    // ────────────────────────────────────────────────
+
+    @Test
+    void foldDropsOnlyEntriesTheSnapshotCovers() throws Exception {
+        onStripe(() -> journal.load(PLAYER, 0L, REGISTRIES));
+        journal.append(PLAYER, "ring", 0, new ItemStack(Items.DIAMOND), REGISTRIES);
+        journal.append(PLAYER, "ring", 1, new ItemStack(Items.EMERALD), REGISTRIES);
+        journal.append(PLAYER, "amulet", 0, new ItemStack(Items.GOLD_INGOT), REGISTRIES);
+        assertEquals(3L, journal.currentSeq(PLAYER));
+        onStripe(() -> journal.drainNow(PLAYER));
+
+        onStripe(() -> journal.fold(PLAYER, 2L));
+
+        List<EquipmentJournal.Entry> left = reload(2L);
+        assertEquals(1, left.size());
+        assertEquals(3L, left.get(0).seq());
+        assertEquals("amulet", left.get(0).key());
+        assertTrue(ItemStack.matches(new ItemStack(Items.GOLD_INGOT), left.get(0).stack()));
+    }
+
+    @Test
+    void foldOfEverythingDeletesTheFile() throws Exception {
+        onStripe(() -> journal.load(PLAYER, 0L, REGISTRIES));
+        journal.append(PLAYER, "ring", 0, new ItemStack(Items.DIAMOND), REGISTRIES);
+        onStripe(() -> journal.drainNow(PLAYER));
+        assertTrue(Files.exists(file()));
+
+        onStripe(() -> journal.fold(PLAYER, journal.currentSeq(PLAYER)));
+        assertFalse(Files.exists(file()));
+    }
+
+    @Test
+    void commitSkipsEntriesAlreadyFolded() throws Exception {
+        onStripe(() -> journal.load(PLAYER, 0L, REGISTRIES));
+        // Hold the stripe so a snapshot covering seq 1 is folded before the batch is committed
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        executor.execute(PLAYER, gate::join);
+        executor.execute(PLAYER, () -> journal.fold(PLAYER, 1L));
+        journal.append(PLAYER, "ring", 0, new ItemStack(Items.DIAMOND), REGISTRIES);
+        gate.complete(null);
+        onStripe(() -> journal.drainNow(PLAYER));
+
+        assertFalse(Files.exists(file()));
+    }
+
+    @Test
+    void tornTailIsIgnoredAndCut() throws Exception {
+        onStripe(() -> journal.load(PLAYER, 0L, REGISTRIES));
+        journal.append(PLAYER, "ring", 0, new ItemStack(Items.DIAMOND), REGISTRIES);
+        onStripe(() -> journal.drainNow(PLAYER));
+        long valid = Files.size(file());
+        Files.write(file(), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        List<EquipmentJournal.Entry> entries = reload(0L);
+        assertEquals(1, entries.size());
+        assertEquals(valid, Files.size(file()));
+    }
+
+    // ────────────────────────────────────────────────
+    // Replay
+    // ────────────────────────────────────────────────
+
+    private static EquipmentSnapshot.Group group(EquipmentSnapshot snapshot, String key) {
+        return snapshot.groups().stream().filter(g -> g.key().equals(key)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void replayAppliesNewerEntriesInSequenceOrder() {
+        EquipmentSnapshot stored = new EquipmentSnapshot(List.of(
+                new EquipmentSnapshot.Group("ring", 2, new int[]{0}, new ItemStack[]{new ItemStack(Items.DIAMOND)})
+        ), 5L);
+        List<EquipmentJournal.Entry> entries = List.of(
+                new EquipmentJournal.Entry(8L, "amulet", 2, new ItemStack(Items.GOLD_INGOT)),
+                new EquipmentJournal.Entry(7L, "ring", 0, ItemStack.EMPTY),
+                new EquipmentJournal.Entry(6L, "ring", 0, new ItemStack(Items.EMERALD)),
+                new EquipmentJournal.Entry(4L, "ring", 1, new ItemStack(Items.STICK)) // covered by the snapshot
+        );
+
+        EquipmentSnapshot replayed = EquipmentJournal.replay(stored, entries);
+
+        assertEquals(8L, replayed.journalSeq());
+        assertEquals(List.of("ring", "amulet"), replayed.groups().stream().map(EquipmentSnapshot.Group::key).toList());
+
+        EquipmentSnapshot.Group ring = group(replayed, "ring");
+        assertEquals(2, ring.size());
+        assertEquals(0, ring.slots().length, "seq 7 cleared what seq 6 put in slot 0");
+
+        EquipmentSnapshot.Group amulet = group(replayed, "amulet");
+        assertEquals(3, amulet.size(), "new group is sized by its highest slot");
+        assertArrayEquals(new int[]{2}, amulet.slots());
+        assertTrue(ItemStack.matches(new ItemStack(Items.GOLD_INGOT), amulet.stacks()[0]));
+    }
+
+    @Test
+    void replayGrowsAGroupForASlotBeyondItsSize() {
+        EquipmentSnapshot stored = new EquipmentSnapshot(List.of(
+                new EquipmentSnapshot.Group("ring", 2, new int[0], new ItemStack[0])
+        ), 0L);
+
+        EquipmentSnapshot replayed = EquipmentJournal.replay(stored,
+                List.of(new EquipmentJournal.Entry(1L, "ring", 4, new ItemStack(Items.DIAMOND))));
+
+        assertEquals(5, group(replayed, "ring").size());
+        assertArrayEquals(new int[]{4}, group(replayed, "ring").slots());
+    }
+
+    @Test
+    void replayWithoutNewerEntriesReturnsTheSnapshot() {
+        EquipmentSnapshot stored = new EquipmentSnapshot(List.of(), 9L);
+        List<EquipmentJournal.Entry> entries = List.of(new EquipmentJournal.Entry(9L, "ring", 0, new ItemStack(Items.DIAMOND)));
+
+        assertSame(stored, EquipmentJournal.replay(stored, entries));
+    }
+
+    @Test
+    void replayOfReloadedJournalRestoresUnsavedChanges() throws Exception {
+        onStripe(() -> journal.load(PLAYER, 0L, REGISTRIES));
+        journal.append(PLAYER, "ring", 0, new ItemStack(Items.DIAMOND, 3), REGISTRIES);
+        journal.append(PLAYER, "ring", 0, new ItemStack(Items.EMERALD), REGISTRIES);
+        onStripe(() -> journal.drainNow(PLAYER));
+
+        EquipmentSnapshot restored = EquipmentJournal.replay(EquipmentSnapshot.EMPTY, reload(0L));
+        assertArrayEquals(new int[]{0}, group(restored, "ring").slots());
+        assertTrue(ItemStack.matches(new ItemStack(Items.EMERALD), group(restored, "ring").stacks()[0]));
+    }
+}
@@ -0,0 +1,150 @@
+package net.chriskatze.catocraftmod.capability;
+
+import net.chriskatze.catocraftmod.config.EquipmentIOConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentSaveQueueTest {
+
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    private EquipmentIOExecutor executor;
+    private EquipmentSaveQueue queue;
+    private final List<EquipmentSaveQueue.PendingSave> written = Collections.synchronizedList(new ArrayList<>());
+    // Holds the (single) IO worker so saves stay queued until the test lets them through
+    private final CompletableFuture<Void> gate = new CompletableFuture<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = new EquipmentIOExecutor(1, 64, EquipmentIOConfig.Backpressure.BLOCK, 250);
+        queue = new EquipmentSaveQueue(() -> executor, written::add);
+
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(ALICE, () -> {
+            running.countDown();
+            gate.join();
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.complete(null);
+        executor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    private static EquipmentSaveQueue.PendingSave save(UUID id, long journalSeq) {
+        return new EquipmentSaveQueue.PendingSave(id, EquipmentSnapshot.EMPTY.withJournalSeq(journalSeq),
+                null, null, id.toString(), false);
+    }
+
+    @Test
+    void newerSnapshotReplacesTheQueuedOne() throws Exception {
+        queue.enqueue(save(ALICE, 1));
+        queue.enqueue(save(ALICE, 2));
+        queue.enqueue(save(ALICE, 3));
+        assertEquals(1, queue.depth());
+
+        gate.complete(null);
+        queue.flush(ALICE).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, written.size(), "coalesced saves must be written once");
+        assertEquals(3L, written.get(0).snapshot().journalSeq(), "the newest snapshot wins");
+
+        EquipmentSaveQueue.Stats stats = queue.stats();
+        assertEquals(3, stats.enqueued());
+        assertEquals(2, stats.coalesced());
+        assertEquals(1, stats.drained());
+        assertEquals(0, stats.depth());
+    }
+
+    @Test
+    void flushIsABarrierForThePlayersPendingWrite() throws Exception {
+        queue.enqueue(save(ALICE, 1));
+        CompletableFuture<Void> flushed = queue.flush(ALICE);
+
+        Thread.sleep(50);
+        assertFalse(flushed.isDone(), "flush must wait for the queued write");
+        assertTrue(written.isEmpty());
+
+        gate.complete(null);
+        flushed.get(5, TimeUnit.SECONDS);
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    void saveQueuedAfterAWriteIsWrittenAgain() throws Exception {
+        gate.complete(null);
+        queue.enqueue(save(ALICE, 1));
+        queue.flush(ALICE).get(5, TimeUnit.SECONDS);
+        queue.enqueue(save(ALICE, 2));
+        queue.flush(ALICE).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1L, 2L), written.stream().map(s -> s.snapshot().journalSeq()).toList());
+        assertEquals(0, queue.stats().coalesced());
+    }
+
+    @Test
+    void flushAllDrainsEveryPlayer() {
+        queue.enqueue(save(ALICE, 1));
+        queue.enqueue(save(BOB, 1));
+        queue.enqueue(save(BOB, 2));
+        assertEquals(2, queue.depth());
+
+        // Let the worker go only once flushAll has taken its list of pending players
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> gate.complete(null));
+        assertEquals(2, queue.flushAll(5, TimeUnit.SECONDS));
+
+        assertEquals(0, queue.depth());
+        assertEquals(2, written.size());
+        assertEquals(0, queue.flushAll(5, TimeUnit.SECONDS), "nothing left to flush");
+    }
+
+    @Test
+    void depthCountersTrackThePeak() throws Exception {
+        queue.enqueue(save(ALICE, 1));
+        queue.enqueue(save(BOB, 1));
+        assertEquals(2, queue.stats().depth());
+        assertEquals(2, queue.stats().maxDepth());
+
+        gate.complete(null);
+        queue.flushAll(5, TimeUnit.SECONDS);
+        queue.enqueue(save(ALICE, 2));
+        queue.flush(ALICE).get(5, TimeUnit.SECONDS);
+
+        EquipmentSaveQueue.Stats stats = queue.stats();
+        assertEquals(0, stats.depth());
+        assertEquals(2, stats.maxDepth(), "peak survives the drain");
+        assertEquals(3, stats.drained());
+    }
+
+    @Test
+    void failedWriteDoesNotWedgeThePlayer() throws Exception {
+        EquipmentSaveQueue failing = new EquipmentSaveQueue(() -> executor, save -> {
+            if (save.snapshot().journalSeq() == 1) throw new IllegalStateException("disk full");
+            written.add(save);
+        });
+        gate.complete(null);
+
+        failing.enqueue(save(ALICE, 1));
+        failing.flush(ALICE).get(5, TimeUnit.SECONDS);
+        failing.enqueue(save(ALICE, 2));
+        failing.flush(ALICE).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, written.size());
+        assertEquals(1, failing.stats().drained());
+        assertEquals(0, failing.depth());
+    }
+}
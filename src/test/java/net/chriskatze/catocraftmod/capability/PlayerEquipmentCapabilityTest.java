@@ -0,0 +1,82 @@
+package net.chriskatze.catocraftmod.capability;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.mojang.authlib.GameProfile;
+import net.chriskatze.catocraftmod.CatocraftMod;
+import net.chriskatze.catocraftmod.menu.layout.EquipmentGroup;
+import net.chriskatze.catocraftmod.menu.layout.SlotLayoutLoader;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.neoforged.neoforge.common.util.FakePlayerFactory;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+class PlayerEquipmentCapabilityTest {
+
+    private static JsonObject layout(String... requires) {
+        JsonObject json = new JsonObject();
+        JsonArray origin = new JsonArray();
+        origin.add(0);
+        origin.add(0);
+        json.add("origin", origin);
+        JsonArray required = new JsonArray();
+        for (String r : requires) required.add(r);
+        json.add("requires", required);
+        return json;
+    }
+
+    /** Replaces the loaded layouts: one base group, two groups needing it and one needing a dependent. */
+    private static void loadLayouts() {
+        Map<ResourceLocation, JsonElement> layouts = new LinkedHashMap<>();
+        layouts.put(CatocraftMod.id("equipment/cascade_base"), layout());
+        layouts.put(CatocraftMod.id("equipment/cascade_a"), layout("cascade_base"));
+        layouts.put(CatocraftMod.id("equipment/cascade_b"), layout("cascade_base"));
+        layouts.put(CatocraftMod.id("equipment/cascade_c"), layout("cascade_a"));
+        new SlotLayoutLoader() {
+            {
+                apply(layouts, null, null);
+            }
+        };
+    }
+
+    @Test
+    void clearingABaseReconcilesAttributesOnce(MinecraftServer server) {
+        loadLayouts();
+        ServerPlayer player = FakePlayerFactory.get(server.overworld(), new GameProfile(UUID.randomUUID(), "cascade"));
+        PlayerEquipmentCapability cap = player.getCapability(EquipmentCapabilityHandler.EQUIPMENT_CAP);
+        assertNotNull(cap);
+
+        EquipmentGroup base = EquipmentGroup.fromKey("cascade_base");
+        EquipmentGroup a = EquipmentGroup.fromKey("cascade_a");
+        EquipmentGroup b = EquipmentGroup.fromKey("cascade_b");
+        EquipmentGroup c = EquipmentGroup.fromKey("cascade_c");
+        cap.setItem(base, new ItemStack(Items.DIAMOND));
+        cap.setItem(a, new ItemStack(Items.EMERALD));
+        cap.setItem(b, new ItemStack(Items.GOLD_INGOT));
+        cap.setItem(c, new ItemStack(Items.IRON_INGOT));
+        assertEquals(Set.of(base, a, b, c), cap.getEquippedGroups());
+
+        int before = cap.attributeReconciles();
+        cap.setItem(base, ItemStack.EMPTY);
+
+        assertEquals(before + 1, cap.attributeReconciles(), "the whole cascade is one transaction");
+        assertTrue(cap.getEquippedGroups().isEmpty(), "every (transitive) dependent is unequipped");
+        assertTrue(player.getInventory().contains(new ItemStack(Items.EMERALD)));
+        assertTrue(player.getInventory().contains(new ItemStack(Items.GOLD_INGOT)));
+        assertTrue(player.getInventory().contains(new ItemStack(Items.IRON_INGOT)));
+    }
+}
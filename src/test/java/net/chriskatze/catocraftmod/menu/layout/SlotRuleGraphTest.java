@@ -0,0 +1,78 @@
+package net.chriskatze.catocraftmod.menu.layout;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlotRuleGraphTest {
+
+    /** {@code require(r, 0, 1, 2)}: group 0 requires groups 1 and 2. */
+    private static void require(BitSet[] requires, int group, int... needed) {
+        for (int n : needed) requires[group].set(n);
+    }
+
+    private static BitSet[] graph(int count) {
+        BitSet[] requires = new BitSet[count];
+        for (int i = 0; i < count; i++) requires[i] = new BitSet();
+        return requires;
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet set = new BitSet();
+        for (int i : indices) set.set(i);
+        return set;
+    }
+
+    @Test
+    void chainClosesTransitively() {
+        // 2 requires 1, 1 requires 0
+        BitSet[] requires = graph(3);
+        require(requires, 1, 0);
+        require(requires, 2, 1);
+
+        BitSet[] dependents = SlotRuleGraph.dependents(requires);
+        assertEquals(bits(1, 2), dependents[0]);
+        assertEquals(bits(2), dependents[1]);
+        assertEquals(bits(), dependents[2]);
+    }
+
+    @Test
+    void diamondListsEachDependentOnce() {
+        // 1 and 2 require 0, 3 requires both 1 and 2
+        BitSet[] requires = graph(4);
+        require(requires, 1, 0);
+        require(requires, 2, 0);
+        require(requires, 3, 1, 2);
+
+        BitSet[] dependents = SlotRuleGraph.dependents(requires);
+        assertEquals(bits(1, 2, 3), dependents[0]);
+        assertEquals(bits(3), dependents[1]);
+        assertEquals(bits(3), dependents[2]);
+    }
+
+    @Test
+    void cycleNeverContainsItself() {
+        // 0 ↔ 1, and 2 requires 1
+        BitSet[] requires = graph(3);
+        require(requires, 0, 1);
+        require(requires, 1, 0);
+        require(requires, 2, 1);
+
+        BitSet[] dependents = SlotRuleGraph.dependents(requires);
+        assertEquals(bits(1, 2), dependents[0]);
+        assertEquals(bits(0, 2), dependents[1]);
+        assertEquals(bits(), dependents[2]);
+    }
+
+    @Test
+    void unrelatedGroupsHaveNoDependents() {
+        BitSet[] requires = graph(3);
+        require(requires, 1, 0);
+
+        BitSet[] dependents = SlotRuleGraph.dependents(requires);
+        assertEquals(bits(), dependents[2]);
+        assertEquals(bits(1), dependents[0]);
+    }
+}